@@ -0,0 +1,88 @@
+package stage2.authentification.benchmarks;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import stage2.authentification.security.JwtAuthenticationFilter;
+import stage2.authentification.security.JwtUtil;
+import stage2.authentification.security.TokenRevocationList;
+import stage2.authentification.security.TokenVersionRegistry;
+import stage2.authentification.security.VerifiedTokenCache;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full pass of {@link JwtAuthenticationFilter} in stateless mode with a no-op chain, with and without
+ * the verified-token cache. The request/response mocks are allocated per operation and are included in
+ * the reported allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationFilterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean verifiedTokenCache;
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        TokenVersionRegistry tokenVersionRegistry = new TokenVersionRegistry();
+        jwtUtil = Fixtures.jwtUtil(tokenVersionRegistry);
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "tokenVersionRegistry", tokenVersionRegistry);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", new VerifiedTokenCache(verifiedTokenCache, 1024));
+        ReflectionTestUtils.setField(filter, "tokenRevocationList", new TokenRevocationList(null, 100_000, 0.01));
+        ReflectionTestUtils.setField(filter, "stateless", true);
+    }
+
+    @Setup(Level.Iteration)
+    public void refreshToken() {
+        authorization = "Bearer " + jwtUtil.generateToken(Fixtures.user());
+    }
+
+    @Benchmark
+    public void authenticatedRequest(Blackhole blackhole) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/profile");
+        request.addHeader("Authorization", authorization);
+        FilterChain chain = (req, res) -> blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void anonymousRequest(Blackhole blackhole) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/profile");
+        FilterChain chain = (req, res) -> blackhole.consume(req);
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+    }
+}
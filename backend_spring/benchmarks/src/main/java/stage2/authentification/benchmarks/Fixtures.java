@@ -0,0 +1,87 @@
+package stage2.authentification.benchmarks;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import stage2.authentification.metrics.AuthMetrics;
+import stage2.authentification.security.JwtKeyRing;
+import stage2.authentification.security.JwtUtil;
+import stage2.authentification.security.TokenVersionRegistry;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Wires the application components by hand, without a Spring context or a database.
+ */
+final class Fixtures {
+
+    static final String EMAIL = "bench@example.com";
+
+    private Fixtures() {
+    }
+
+    static JwtUtil jwtUtil(TokenVersionRegistry tokenVersionRegistry) {
+        return jwtUtil(tokenVersionRegistry, "HS256");
+    }
+
+    /**
+     * @param algorithm {@code HS256} (shared secret) or {@code ES256} (in-memory key ring)
+     */
+    static JwtUtil jwtUtil(TokenVersionRegistry tokenVersionRegistry, String algorithm) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "tokenVersionRegistry", tokenVersionRegistry);
+        ReflectionTestUtils.setField(jwtUtil, "authMetrics", new AuthMetrics(new SimpleMeterRegistry()));
+        if ("ES256".equals(algorithm)) {
+            ReflectionTestUtils.setField(jwtUtil, "keyRing",
+                    new JwtKeyRing(Duration.ofDays(7), Duration.ofMinutes(15), Duration.ofMinutes(10), ""));
+            ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        }
+        return jwtUtil;
+    }
+
+    static UserDetails user() {
+        return User.withUsername(EMAIL).password("").authorities("ROLE_USER").build();
+    }
+
+    /**
+     * Validly signed access token whose {@code exp} is in the past.
+     */
+    static String expiredToken(JwtUtil jwtUtil) {
+        long now = System.currentTimeMillis();
+        JwtBuilder builder = Jwts.builder()
+            .setSubject(EMAIL)
+            .claim("role", "ROLE_USER")
+            .claim("type", "access")
+            .claim("ver", 0)
+            .setIssuedAt(new Date(now - 120_000))
+            .setExpiration(new Date(now - 60_000));
+        JwtKeyRing keyRing = (JwtKeyRing) ReflectionTestUtils.getField(jwtUtil, "keyRing");
+        if (keyRing == null) {
+            Key key = (Key) ReflectionTestUtils.getField(jwtUtil, "signingKey");
+            return builder.signWith(key, SignatureAlgorithm.HS256).compact();
+        }
+        JwtKeyRing.SigningKey key = keyRing.activeKey();
+        return builder
+            .setHeaderParam(JwsHeader.KEY_ID, key.getKid())
+            .signWith(key.getPrivateKey(), SignatureAlgorithm.ES256)
+            .compact();
+    }
+
+    /**
+     * Token with one signature character altered. Not the last one: its low bits are base64 padding.
+     */
+    static String tamperedToken(String token) {
+        int i = token.length() - 10;
+        char c = token.charAt(i);
+        return token.substring(0, i) + (c == 'A' ? 'B' : 'A') + token.substring(i + 1);
+    }
+}
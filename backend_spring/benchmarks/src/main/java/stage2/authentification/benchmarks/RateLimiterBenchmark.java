@@ -0,0 +1,53 @@
+package stage2.authentification.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import stage2.authentification.security.TokenBucketLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link TokenBucketLimiter#tryAcquire} call with the default table size: a single hot key (always
+ * limited after its burst) and a rotating set of distinct keys larger than the table (constant eviction).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "4000000"})
+    private int distinctKeys;
+
+    private TokenBucketLimiter limiter;
+    private String[] keys;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        limiter = new TokenBucketLimiter(1 << 20, 20, 60);
+        keys = new String[distinctKeys];
+        for (int i = 0; i < distinctKeys; i++) {
+            keys[i] = "10." + (i >>> 16 & 0xFF) + "." + (i >>> 8 & 0xFF) + "." + (i & 0xFF) + ":" + i;
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        String key = keys[next];
+        next = next + 1 == keys.length ? 0 : next + 1;
+        return limiter.tryAcquire(key);
+    }
+}
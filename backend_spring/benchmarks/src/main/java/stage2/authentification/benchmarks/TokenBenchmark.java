@@ -0,0 +1,99 @@
+package stage2.authentification.benchmarks;
+
+import io.jsonwebtoken.JwtException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import stage2.authentification.security.JwtUtil;
+import stage2.authentification.security.TokenVersionRegistry;
+import stage2.authentification.security.VerifiedToken;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token minting and verification in {@link JwtUtil}: valid, expired and tampered tokens, plus the
+ * former extractUsername + validateToken sequence of the filter for comparison, with the HS256 shared
+ * secret and with the ES256 key ring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenBenchmark {
+
+    @Param({"HS256", "ES256"})
+    private String algorithm;
+
+    private JwtUtil jwtUtil;
+    private UserDetails user;
+    private String validToken;
+    private String expiredToken;
+    private String tamperedToken;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = Fixtures.jwtUtil(new TokenVersionRegistry(), algorithm);
+        user = Fixtures.user();
+        // Le token d'accès expire au bout d'une minute : largement assez pour une itération
+        validToken = jwtUtil.generateToken(user);
+        expiredToken = Fixtures.expiredToken(jwtUtil);
+        tamperedToken = Fixtures.tamperedToken(validToken);
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+    public void refreshValidToken() {
+        validToken = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return jwtUtil.generateRefreshToken(user);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyValid() {
+        return jwtUtil.verify(validToken);
+    }
+
+    @Benchmark
+    public boolean extractUsernameThenValidate() {
+        String username = jwtUtil.extractUsername(validToken);
+        return username != null && jwtUtil.validateToken(validToken, user);
+    }
+
+    @Benchmark
+    public Object verifyExpired() {
+        return verifyCatching(expiredToken);
+    }
+
+    @Benchmark
+    public Object verifyTampered() {
+        return verifyCatching(tamperedToken);
+    }
+
+    private Object verifyCatching(String token) {
+        try {
+            return jwtUtil.verify(token);
+        } catch (JwtException e) {
+            return e;
+        }
+    }
+}
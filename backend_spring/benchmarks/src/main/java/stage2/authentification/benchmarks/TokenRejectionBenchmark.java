@@ -0,0 +1,71 @@
+package stage2.authentification.benchmarks;
+
+import io.jsonwebtoken.JwtException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import stage2.authentification.security.JwtUtil;
+import stage2.authentification.security.TokenCheck;
+import stage2.authentification.security.TokenVersionRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rejecting one bad Bearer token: {@link JwtUtil#verify(String)} (parse, then exception) against
+ * {@link JwtUtil#check(String)} (structural and {@code exp} precheck, no exception), per kind of bad token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenRejectionBenchmark {
+
+    /**
+     * garbage: not a JWT; truncated: signature cut short; expired: well-formed, validly signed, past exp;
+     * tampered: well-formed and unexpired, wrong signature (the precheck cannot reject it).
+     */
+    @Param({"garbage", "truncated", "expired", "tampered"})
+    private String kind;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = Fixtures.jwtUtil(new TokenVersionRegistry());
+        String valid = jwtUtil.generateToken(Fixtures.user());
+        switch (kind) {
+            case "garbage" -> token = "undefined";
+            case "truncated" -> token = valid.substring(0, valid.length() - 5);
+            case "expired" -> token = Fixtures.expiredToken(jwtUtil);
+            case "tampered" -> token = Fixtures.tamperedToken(valid);
+            default -> throw new IllegalArgumentException(kind);
+        }
+    }
+
+    @Benchmark
+    public Object verifyThrowing() {
+        try {
+            return jwtUtil.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public TokenCheck check() {
+        return jwtUtil.check(token);
+    }
+}
@@ -2,8 +2,10 @@ package stage2.authentification;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class AuthentificationApplication {
 
 	public static void main(String[] args) {
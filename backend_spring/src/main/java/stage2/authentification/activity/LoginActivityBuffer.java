@@ -0,0 +1,77 @@
+package stage2.authentification.activity;
+
+import stage2.authentification.concurrent.MpscRingSequencer;
+
+/**
+ * Bounded ring of login activity events: many producers (request threads), one consumer (the writer).
+ * <p>
+ * Slots are handed out by a {@link MpscRingSequencer} and the events stored in parallel primitive arrays,
+ * so recording allocates nothing. When the ring is full the event is dropped and counted: the request
+ * never waits for the database.
+ */
+public final class LoginActivityBuffer {
+
+    public static final int LOGIN = 1;
+    public static final int REFRESH = 2;
+
+    private final MpscRingSequencer ring;
+    private final long[] userIds;
+    private final long[] timestamps;
+    private final int[] types;
+
+    public LoginActivityBuffer(int capacity) {
+        this.ring = new MpscRingSequencer(capacity);
+        this.userIds = new long[ring.capacity()];
+        this.timestamps = new long[ring.capacity()];
+        this.types = new int[ring.capacity()];
+    }
+
+    /**
+     * @return {@code false} if the ring was full and the event was dropped
+     */
+    public boolean offer(long userId, int type, long timestamp) {
+        long position = ring.claim();
+        if (position < 0) {
+            return false;
+        }
+        int index = ring.slot(position);
+        userIds[index] = userId;
+        timestamps[index] = timestamp;
+        types[index] = type;
+        ring.publish(position);
+        return true;
+    }
+
+    /**
+     * Hands at most {@code max} events to {@code consumer}, in order. Consumer thread only.
+     *
+     * @return the number of events drained
+     */
+    public int drain(Consumer consumer, int max) {
+        int drained = 0;
+        int index;
+        while (drained < max && (index = ring.peek()) >= 0) {
+            consumer.accept(userIds[index], types[index], timestamps[index]);
+            ring.release();
+            drained++;
+        }
+        return drained;
+    }
+
+    public int size() {
+        return ring.size();
+    }
+
+    public int capacity() {
+        return ring.capacity();
+    }
+
+    public long getDroppedCount() {
+        return ring.getDroppedCount();
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long userId, int type, long timestamp);
+    }
+}
@@ -0,0 +1,201 @@
+package stage2.authentification.activity;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import stage2.authentification.concurrent.IdleWait;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records {@code users.last_login_at}, {@code login_count} and {@code last_activity_at} off the request path.
+ * <p>
+ * Login and refresh only put an event in a {@link LoginActivityBuffer}. A single background thread drains
+ * it, merges the events of each user (one row update however many logins happened in between) and writes
+ * them with one batched {@code UPDATE} in one transaction, once {@code batch-size} users are pending or
+ * {@code flush-interval} after the first pending event. Events that do not fit in the ring are dropped and
+ * counted; on shutdown the thread drains the ring and flushes before the datasource closes.
+ */
+@Component
+public class LoginActivityWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginActivityWriter.class);
+
+    // GREATEST ignore les NULL (PostgreSQL comme H2) : un événement plus ancien ne recule jamais les dates
+    private static final String UPDATE_SQL = "update users set login_count = login_count + ?, "
+            + "last_login_at = greatest(last_login_at, ?), last_activity_at = greatest(last_activity_at, ?) "
+            + "where id = ?";
+
+    private static final int[] ARG_TYPES = {Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT};
+
+    private static final int DRAIN_CHUNK = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LoginActivityBuffer buffer;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    // Utilisés par le seul thread d'écriture
+    private final Map<Long, Pending> pending = new HashMap<>();
+    private long firstPendingAt;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public LoginActivityWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                               @Value("${activity.login.enabled:true}") boolean enabled,
+                               @Value("${activity.login.buffer-capacity:65536}") int bufferCapacity,
+                               @Value("${activity.login.batch-size:500}") int batchSize,
+                               @Value("${activity.login.flush-interval:1s}") Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.buffer = new LoginActivityBuffer(enabled ? bufferCapacity : 2);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = Thread.ofPlatform().name("login-activity-writer").daemon(true).start(this::run);
+    }
+
+    public void recordLogin(long userId) {
+        record(userId, LoginActivityBuffer.LOGIN);
+    }
+
+    public void recordRefresh(long userId) {
+        record(userId, LoginActivityBuffer.REFRESH);
+    }
+
+    private void record(long userId, int type) {
+        if (enabled && buffer.offer(userId, type, System.currentTimeMillis())) {
+            recorded.increment();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (drainAndFlush(false) == 0) {
+                IdleWait.pause();
+            }
+        }
+        // Arrêt : tout ce qui a été accepté est écrit
+        drainAndFlush(true);
+    }
+
+    /**
+     * Drains what the ring holds, then flushes if a trigger is reached (or unconditionally with {@code force}).
+     *
+     * @return the number of events drained
+     */
+    int drainAndFlush(boolean force) {
+        int total = 0;
+        int drained;
+        do {
+            drained = buffer.drain(this::merge, DRAIN_CHUNK);
+            total += drained;
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        } while (drained == DRAIN_CHUNK || (force && buffer.size() > 0));
+
+        if (!pending.isEmpty() && (force || System.nanoTime() - firstPendingAt >= flushIntervalNanos)) {
+            flush();
+        }
+        return total;
+    }
+
+    private void merge(long userId, int type, long timestamp) {
+        if (pending.isEmpty()) {
+            firstPendingAt = System.nanoTime();
+        }
+        pending.computeIfAbsent(userId, id -> new Pending()).add(type, timestamp);
+    }
+
+    private void flush() {
+        List<Object[]> rows = new ArrayList<>(pending.size());
+        // Lignes toujours verrouillées dans l'ordre des id : pas d'interblocage entre instances
+        pending.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> rows.add(entry.getValue().toRow(entry.getKey())));
+        pending.clear();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, rows, ARG_TYPES));
+            flushedRows.add(rows.size());
+            flushes.increment();
+        } catch (RuntimeException e) {
+            // Donnée d'activité, pas de retentative : on compte et on continue
+            failedRows.add(rows.size());
+            log.warn("Could not write login activity for {} users", rows.size(), e);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public int getBufferSize() { return buffer.size(); }
+    public int getBufferCapacity() { return buffer.capacity(); }
+    public long getRecordedCount() { return recorded.sum(); }
+    public long getDroppedCount() { return buffer.getDroppedCount(); }
+    public long getFlushedRowCount() { return flushedRows.sum(); }
+    public long getFlushCount() { return flushes.sum(); }
+    public long getFailedRowCount() { return failedRows.sum(); }
+
+    private static final class Pending {
+        long logins;
+        long lastLogin;
+        long lastActivity;
+
+        void add(int type, long timestamp) {
+            if (type == LoginActivityBuffer.LOGIN) {
+                logins++;
+                lastLogin = Math.max(lastLogin, timestamp);
+            }
+            lastActivity = Math.max(lastActivity, timestamp);
+        }
+
+        Object[] toRow(long userId) {
+            return new Object[] {
+                logins,
+                lastLogin > 0 ? new Timestamp(lastLogin) : null,
+                new Timestamp(lastActivity),
+                userId
+            };
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package stage2.authentification.audit;
+
+import stage2.authentification.concurrent.MpscRingSequencer;
+
+/**
+ * Bounded ring of encoded audit records: many producers (request threads), one consumer (the segment writer).
+ * <p>
+ * Slots are handed out by a {@link MpscRingSequencer}, as for {@code LoginActivityBuffer}; a producer encodes
+ * its record straight into its slot of one flat byte array. A full ring drops the record and counts it.
+ */
+final class AuditBuffer {
+
+    private final MpscRingSequencer ring;
+    private final byte[] slots;
+
+    AuditBuffer(int capacity) {
+        this.ring = new MpscRingSequencer(capacity);
+        this.slots = new byte[ring.capacity() * AuditRecord.SIZE];
+    }
+
+    /**
+     * @return {@code false} if the ring was full and the record was dropped
+     */
+    boolean offer(AuditLog.Event event, AuditLog.Outcome outcome, long timestamp, long userId,
+                  String ip, String email, String actor) {
+        long position = ring.claim();
+        if (position < 0) {
+            return false;
+        }
+        AuditRecord.encode(slots, ring.slot(position) * AuditRecord.SIZE, event, outcome, timestamp, userId, ip,
+                email, actor);
+        ring.publish(position);
+        return true;
+    }
+
+    /**
+     * Hands at most {@code max} records to {@code consumer}, in order. Consumer thread only.
+     *
+     * @return the number of records drained
+     */
+    int drain(Consumer consumer, int max) {
+        int drained = 0;
+        int index;
+        while (drained < max && (index = ring.peek()) >= 0) {
+            consumer.accept(slots, index * AuditRecord.SIZE);
+            ring.release();
+            drained++;
+        }
+        return drained;
+    }
+
+    int size() {
+        return ring.size();
+    }
+
+    long getDroppedCount() {
+        return ring.getDroppedCount();
+    }
+
+    @FunctionalInterface
+    interface Consumer {
+        /**
+         * Receives the record at {@code data[offset .. offset + AuditRecord.SIZE)}, valid during the call only.
+         */
+        void accept(byte[] data, int offset);
+    }
+}
@@ -0,0 +1,227 @@
+package stage2.authentification.audit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import stage2.authentification.concurrent.IdleWait;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Security audit trail: logins, failed logins, registrations and user creation calls.
+ * <p>
+ * Recording encodes a fixed-size binary record ({@link AuditRecord}) into a bounded ring; the request thread
+ * neither formats text nor touches a file. A single background thread copies the records into memory-mapped
+ * segment files ({@link AuditSegmentWriter}), opening a new segment every {@code segment-size} and keeping the
+ * last {@code max-segments}. Records that do not fit in the ring are dropped and counted. Segments are decoded
+ * with {@link AuditLogReader}.
+ */
+@Component
+public class AuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    /**
+     * Audited operations. Codes are stored in the segments: never renumber them.
+     */
+    public enum Event {
+        LOGIN(1), REGISTER(2), CREATE_USER(3), CREATE_USERS_BULK(4), LOGOUT_ALL(5), PASSWORD_CHANGE(6);
+
+        private final byte code;
+
+        Event(int code) {
+            this.code = (byte) code;
+        }
+
+        public byte getCode() {
+            return code;
+        }
+
+        public String getTag() {
+            return name().toLowerCase();
+        }
+
+        static Event fromCode(byte code) {
+            for (Event event : values()) {
+                if (event.code == code) {
+                    return event;
+                }
+            }
+            return null;
+        }
+    }
+
+    public enum Outcome {
+        SUCCESS(1), BAD_CREDENTIALS(2), DUPLICATE(3), RATE_LIMITED(4), BUSY(5), UNAUTHORIZED(6), ERROR(7), FORBIDDEN(8);
+
+        private final byte code;
+
+        Outcome(int code) {
+            this.code = (byte) code;
+        }
+
+        public byte getCode() {
+            return code;
+        }
+
+        public String getTag() {
+            return name().toLowerCase();
+        }
+
+        static Outcome fromCode(byte code) {
+            for (Outcome outcome : values()) {
+                if (outcome.code == code) {
+                    return outcome;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final long UNKNOWN_USER = -1;
+
+    private static final int DRAIN_CHUNK = 1024;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxSegments;
+    private final long syncIntervalNanos;
+    private final AuditBuffer buffer;
+
+    // Utilisés par le seul thread d'écriture
+    private AuditSegmentWriter segments;
+    private long lastSync;
+    private boolean failing;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public AuditLog(@Value("${audit.enabled:true}") boolean enabled,
+                    @Value("${audit.directory:audit}") Path directory,
+                    @Value("${audit.segment-size:64MB}") DataSize segmentSize,
+                    @Value("${audit.max-segments:0}") int maxSegments,
+                    @Value("${audit.buffer-capacity:8192}") int bufferCapacity,
+                    @Value("${audit.sync-interval:1s}") Duration syncInterval) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = segmentSize.toBytes();
+        this.maxSegments = maxSegments;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.buffer = new AuditBuffer(enabled ? bufferCapacity : 2);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        segments = new AuditSegmentWriter(directory, segmentSize, maxSegments);
+        lastSync = System.nanoTime();
+        running = true;
+        thread = Thread.ofPlatform().name("audit-writer").daemon(true).start(this::run);
+    }
+
+    /**
+     * Records an operation of the current request; the client address is taken from the request bound to the
+     * calling thread, if any.
+     *
+     * @param userId the user the operation is about, or {@link #UNKNOWN_USER}
+     * @param email  the email submitted or created
+     * @param actor  the subject of the token that made the call, if the call was authenticated
+     */
+    public void record(Event event, Outcome outcome, long userId, String email, String actor) {
+        if (enabled && buffer.offer(event, outcome, System.currentTimeMillis(), userId, clientIp(), email, actor)) {
+            recorded.increment();
+        }
+    }
+
+    public void record(Event event, Outcome outcome, String email) {
+        record(event, outcome, UNKNOWN_USER, email, null);
+    }
+
+    private static String clientIp() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet ? servlet.getRequest().getRemoteAddr() : null;
+    }
+
+    private void run() {
+        while (running) {
+            if (drain() == 0) {
+                IdleWait.pause();
+            }
+            if (System.nanoTime() - lastSync >= syncIntervalNanos) {
+                sync();
+            }
+        }
+        // Arrêt : tout ce qui a été accepté est écrit puis synchronisé
+        while (drain() > 0) {
+            // vide l'anneau
+        }
+        sync();
+        segments.close();
+    }
+
+    int drain() {
+        return buffer.drain(this::append, DRAIN_CHUNK);
+    }
+
+    private void append(byte[] data, int offset) {
+        try {
+            segments.append(data, offset);
+            written.increment();
+            failing = false;
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            // Un seul avertissement par série d'échecs (disque plein, répertoire supprimé...)
+            if (!failing) {
+                failing = true;
+                log.warn("Could not write audit record to {}", directory, e);
+            }
+        }
+    }
+
+    private void sync() {
+        try {
+            segments.force();
+        } catch (RuntimeException e) {
+            log.warn("Could not sync audit segment in {}", directory, e);
+        }
+        lastSync = System.nanoTime();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public int getBufferSize() { return buffer.size(); }
+    public long getRecordedCount() { return recorded.sum(); }
+    public long getDroppedCount() { return buffer.getDroppedCount(); }
+    public long getWrittenCount() { return written.sum(); }
+    public long getFailedCount() { return failed.sum(); }
+    public long getSegmentSequence() { return segments != null ? segments.getSequence() : 0; }
+}
@@ -0,0 +1,116 @@
+package stage2.authentification.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes audit segments to JSON lines, one object per record, oldest first.
+ * <p>
+ * Arguments are segment files or directories (all their segments). Segments being written can be read: the
+ * reader stops at the first free slot. From the packaged application:
+ *
+ * <pre>
+ * java -cp app.jar -Dloader.main=stage2.authentification.audit.AuditLogReader \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher audit/ | jq 'select(.outcome != "success")'
+ * </pre>
+ */
+public final class AuditLogReader {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: AuditLogReader <segment file or directory>...");
+            System.exit(2);
+        }
+        List<Path> segments = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Path.of(arg);
+            segments.addAll(Files.isDirectory(path) ? AuditSegmentWriter.segments(path) : List.of(path));
+        }
+        OutputStream out = new BufferedOutputStream(System.out);
+        AuditLogReader reader = new AuditLogReader();
+        for (Path segment : segments) {
+            reader.read(segment, out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the records of one segment as JSON lines.
+     *
+     * @return the number of records read
+     */
+    public long read(Path segment, OutputStream out) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (channel.size() < AuditRecord.SIZE) {
+                throw new IOException(segment + " is not an audit segment");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.getLong(AuditSegmentWriter.HEADER_MAGIC) != AuditSegmentWriter.MAGIC) {
+            throw new IOException(segment + " is not an audit segment");
+        }
+        int version = buffer.getInt(AuditSegmentWriter.HEADER_VERSION);
+        if (version != AuditSegmentWriter.VERSION || buffer.getInt(AuditSegmentWriter.HEADER_RECORD_SIZE) != AuditRecord.SIZE) {
+            throw new IOException(segment + ": unsupported audit segment version " + version);
+        }
+
+        long count = 0;
+        for (int position = AuditRecord.SIZE; position + AuditRecord.SIZE <= buffer.limit(); position += AuditRecord.SIZE) {
+            if (buffer.get(position + AuditRecord.EVENT) == 0) {
+                break;
+            }
+            out.write(objectMapper.writeValueAsBytes(decode(buffer, position)));
+            out.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    private static Map<String, Object> decode(ByteBuffer buffer, int position) {
+        AuditLog.Event event = AuditLog.Event.fromCode(buffer.get(position + AuditRecord.EVENT));
+        AuditLog.Outcome outcome = AuditLog.Outcome.fromCode(buffer.get(position + AuditRecord.OUTCOME));
+        int flags = buffer.get(position + AuditRecord.FLAGS);
+        long userId = buffer.getLong(position + AuditRecord.USER_ID);
+
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("time", Instant.ofEpochMilli(buffer.getLong(position + AuditRecord.TIMESTAMP)).toString());
+        record.put("event", event != null ? event.getTag() : "unknown");
+        record.put("outcome", outcome != null ? outcome.getTag() : "unknown");
+        record.put("userId", userId != AuditLog.UNKNOWN_USER ? userId : null);
+        record.put("email", text(buffer, position + AuditRecord.EMAIL, buffer.get(position + AuditRecord.EMAIL_LENGTH)));
+        record.put("actor", text(buffer, position + AuditRecord.ACTOR, buffer.get(position + AuditRecord.ACTOR_LENGTH)));
+        record.put("ip", text(buffer, position + AuditRecord.IP, buffer.get(position + AuditRecord.IP_LENGTH)));
+        if (flags != 0) {
+            record.put("truncated", true);
+        }
+        return record;
+    }
+
+    private static String text(ByteBuffer buffer, int offset, byte length) {
+        int size = Byte.toUnsignedInt(length);
+        if (size == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[size];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
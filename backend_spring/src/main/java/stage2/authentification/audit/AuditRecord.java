@@ -0,0 +1,96 @@
+package stage2.authentification.audit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Fixed binary layout of one audit record ({@value #SIZE} bytes, little endian):
+ *
+ * <pre>
+ *   0  event (1)       0 = free slot: written last, so a torn record reads as the end of the segment
+ *   1  outcome (1)
+ *   2  flags (1)       TRUNCATED_EMAIL, TRUNCATED_ACTOR
+ *   3  ip length (1)
+ *   4  email length (1)
+ *   5  actor length (1)
+ *   8  timestamp (8)   epoch milliseconds
+ *  16  user id (8)     -1 when unknown
+ *  32  client ip (48)  textual, ASCII
+ *  80  email (88)      UTF-8
+ * 168  actor (88)      UTF-8, subject of the token that made the call
+ * </pre>
+ */
+final class AuditRecord {
+
+    static final int SIZE = 256;
+
+    static final int EVENT = 0;
+    static final int OUTCOME = 1;
+    static final int FLAGS = 2;
+    static final int IP_LENGTH = 3;
+    static final int EMAIL_LENGTH = 4;
+    static final int ACTOR_LENGTH = 5;
+    static final int TIMESTAMP = 8;
+    static final int USER_ID = 16;
+    static final int IP = 32;
+    static final int IP_MAX = 48;
+    static final int EMAIL = 80;
+    static final int EMAIL_MAX = 88;
+    static final int ACTOR = 168;
+    static final int ACTOR_MAX = 88;
+
+    static final int TRUNCATED_EMAIL = 1;
+    static final int TRUNCATED_ACTOR = 2;
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private AuditRecord() {}
+
+    static void encode(byte[] data, int offset, AuditLog.Event event, AuditLog.Outcome outcome, long timestamp,
+                       long userId, String ip, String email, String actor) {
+        Arrays.fill(data, offset, offset + SIZE, (byte) 0);
+        data[offset + EVENT] = event.getCode();
+        data[offset + OUTCOME] = outcome.getCode();
+        LONG.set(data, offset + TIMESTAMP, timestamp);
+        LONG.set(data, offset + USER_ID, userId);
+        int flags = 0;
+        data[offset + IP_LENGTH] = (byte) putText(data, offset + IP, IP_MAX, ip);
+        int emailLength = putText(data, offset + EMAIL, EMAIL_MAX, email);
+        if (emailLength < 0) {
+            flags |= TRUNCATED_EMAIL;
+            emailLength = -emailLength;
+        }
+        data[offset + EMAIL_LENGTH] = (byte) emailLength;
+        int actorLength = putText(data, offset + ACTOR, ACTOR_MAX, actor);
+        if (actorLength < 0) {
+            flags |= TRUNCATED_ACTOR;
+            actorLength = -actorLength;
+        }
+        data[offset + ACTOR_LENGTH] = (byte) actorLength;
+        data[offset + FLAGS] = (byte) flags;
+    }
+
+    /**
+     * @return the number of bytes written, negated if the text had to be truncated
+     */
+    private static int putText(byte[] data, int offset, int max, String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= max) {
+            System.arraycopy(bytes, 0, data, offset, bytes.length);
+            return bytes.length;
+        }
+        // Coupé sur une frontière de caractère UTF-8
+        int length = max;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        System.arraycopy(bytes, 0, data, offset, length);
+        return -length;
+    }
+}
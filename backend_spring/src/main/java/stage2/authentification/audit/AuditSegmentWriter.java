@@ -0,0 +1,137 @@
+package stage2.authentification.audit;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Appends records to memory-mapped segment files {@code audit-<sequence>.seg}. Single thread only.
+ * <p>
+ * A segment is created at its full size and mapped once; appending is a copy into the mapping, the kernel
+ * writes the pages back (and {@link #force()} on the sync interval). The first {@value AuditRecord#SIZE} bytes
+ * are a header; records follow until the first free slot. A restart always opens a new segment, so a segment
+ * is only ever written by one process.
+ */
+final class AuditSegmentWriter {
+
+    static final long MAGIC = 0x474f4c5449445541L; // "AUDITLOG"
+    static final int VERSION = 1;
+
+    // En-tête : magic (8), version (4), taille d'un enregistrement (4), création (8), numéro de segment (8)
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_VERSION = 8;
+    static final int HEADER_RECORD_SIZE = 12;
+    static final int HEADER_CREATED_AT = 16;
+    static final int HEADER_SEQUENCE = 24;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("audit-(\\d+)\\.seg");
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final int maxSegments;
+
+    // Lu par les métriques
+    private volatile long sequence;
+    private MappedByteBuffer segment;
+    private int written;
+    private boolean dirty;
+
+    AuditSegmentWriter(Path directory, long segmentSize, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.recordsPerSegment = (int) Math.max(1, Math.min(Integer.MAX_VALUE / AuditRecord.SIZE - 1,
+                segmentSize / AuditRecord.SIZE - 1));
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        for (Path existing : segments(directory)) {
+            sequence = Math.max(sequence, sequenceOf(existing));
+        }
+    }
+
+    void append(byte[] data, int offset) throws IOException {
+        if (segment == null || written == recordsPerSegment) {
+            rotate();
+        }
+        int position = (written + 1) * AuditRecord.SIZE;
+        // Type écrit en dernier : un enregistrement à moitié copié reste un slot libre pour le lecteur
+        segment.put(position + 1, data, offset + 1, AuditRecord.SIZE - 1);
+        segment.put(position, data[offset + AuditRecord.EVENT]);
+        written++;
+        dirty = true;
+    }
+
+    /**
+     * Flushes the written pages of the current segment to the device.
+     */
+    void force() {
+        if (dirty) {
+            segment.force();
+            dirty = false;
+        }
+    }
+
+    void close() {
+        if (segment != null) {
+            force();
+            segment = null;
+        }
+    }
+
+    private void rotate() throws IOException {
+        close();
+        sequence++;
+        Path file = directory.resolve(String.format("audit-%012d.seg", sequence));
+        long size = (long) (recordsPerSegment + 1) * AuditRecord.SIZE;
+        // La projection reste valide après la fermeture du canal
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segment.putLong(HEADER_MAGIC, MAGIC);
+        segment.putInt(HEADER_VERSION, VERSION);
+        segment.putInt(HEADER_RECORD_SIZE, AuditRecord.SIZE);
+        segment.putLong(HEADER_CREATED_AT, System.currentTimeMillis());
+        segment.putLong(HEADER_SEQUENCE, sequence);
+        written = 0;
+        dirty = true;
+        deleteOldSegments();
+    }
+
+    private void deleteOldSegments() throws IOException {
+        if (maxSegments <= 0) {
+            return;
+        }
+        List<Path> segments = segments(directory);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Segment files of {@code directory}, oldest first.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+}
@@ -0,0 +1,21 @@
+package stage2.authentification.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pause of a background consumer thread that found its ring empty. Producers never signal the consumer
+ * (that would cost them an unpark per event): it polls, and the pause bounds both the idle CPU and the
+ * delay before a new entry is seen. {@link LockSupport#unpark(Thread)} ends the pause early, e.g. on shutdown.
+ */
+public final class IdleWait {
+
+    public static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private IdleWait() {
+    }
+
+    public static void pause() {
+        LockSupport.parkNanos(PARK_NANOS);
+    }
+}
@@ -0,0 +1,98 @@
+package stage2.authentification.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Slot ownership of a bounded ring with many producers and one consumer (Vyukov's bounded queue). The
+ * ring's data lives in the caller's own arrays, indexed by the slot numbers handed out here.
+ * <p>
+ * Lock-free and allocation-free: each slot has a sequence number telling whether it is free for the
+ * producer of a given position or filled for the consumer. A producer claims a position with one CAS on
+ * the tail, writes its slot, then publishes it by advancing the slot's sequence. When the ring is full the
+ * claim fails and is counted as a drop: producers never wait for the consumer.
+ */
+public final class MpscRingSequencer {
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+    // Écrit par le seul consommateur ; volatile pour que size() reste lisible depuis les métriques
+    private volatile long head;
+
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param capacity rounded up to a power of two (at least 2)
+     */
+    public MpscRingSequencer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Claims the next position for a producer.
+     *
+     * @return the position, or -1 if the ring is full (counted as dropped)
+     */
+    public long claim() {
+        while (true) {
+            long position = tail.get();
+            long available = sequences.get(slot(position)) - position;
+            if (available < 0) {
+                dropped.increment();
+                return -1;
+            }
+            if (available == 0 && tail.compareAndSet(position, position + 1)) {
+                return position;
+            }
+        }
+    }
+
+    public int slot(long position) {
+        return (int) position & mask;
+    }
+
+    /**
+     * Hands a claimed position over to the consumer: the producer's writes to its slot are visible to the
+     * consumer that sees it through {@link #peek()}.
+     */
+    public void publish(long position) {
+        sequences.set(slot(position), position + 1);
+    }
+
+    /**
+     * Slot of the oldest published entry, or -1 if there is none. Consumer thread only.
+     */
+    public int peek() {
+        int slot = slot(head);
+        return sequences.get(slot) == head + 1 ? slot : -1;
+    }
+
+    /**
+     * Gives the slot returned by {@link #peek()} back to the producers. Consumer thread only.
+     */
+    public void release() {
+        // Rend le slot aux producteurs pour le tour suivant
+        sequences.set(slot(head), head + mask + 1);
+        head++;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,72 @@
+package stage2.authentification.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import stage2.authentification.security.JwtKeyRing;
+
+import java.math.BigInteger;
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the ES256 verification keys (RFC 7517 JWK set) so other services check access tokens locally,
+ * without calling this service. Answers 404 while tokens are signed with the HS256 shared secret.
+ */
+@RestController
+public class JwksController {
+
+    // Taille en octets d'une coordonnée P-256
+    private static final int COORDINATE_SIZE = 32;
+
+    @Autowired(required = false)
+    private JwtKeyRing keyRing;
+
+    @Value("${security.jwt.jwks.max-age:5m}")
+    private Duration maxAge;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        if (keyRing == null) {
+            return ResponseEntity.notFound().build();
+        }
+        List<Map<String, String>> keys = new ArrayList<>();
+        for (JwtKeyRing.SigningKey key : keyRing.publishedKeys()) {
+            keys.add(toJwk(key));
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                .body(Map.of("keys", keys));
+    }
+
+    private static Map<String, String> toJwk(JwtKeyRing.SigningKey key) {
+        ECPublicKey publicKey = key.getPublicKey();
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("kid", key.getKid());
+        jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+        jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+        return jwk;
+    }
+
+    private static String coordinate(BigInteger value) {
+        // BigInteger peut ajouter un octet de signe ou en omettre en tête : on ramène à 32 octets exactement
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[COORDINATE_SIZE];
+        int length = Math.min(bytes.length, COORDINATE_SIZE);
+        System.arraycopy(bytes, bytes.length - length, fixed, COORDINATE_SIZE - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
@@ -1,39 +1,70 @@
 package stage2.authentification.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import stage2.authentification.audit.AuditLog;
 import stage2.authentification.dto.AuthResponse;
-import stage2.authentification.entity.User;
-import stage2.authentification.security.JwtUtil;
+import stage2.authentification.dto.BulkImportResult;
+import stage2.authentification.security.AuthRateLimiter;
+import stage2.authentification.security.PasswordHashingBusyException;
+import stage2.authentification.security.VerifiedToken;
+import stage2.authentification.service.TokenIntrospectionService;
+import stage2.authentification.service.UserImportService;
 import stage2.authentification.service.UserService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/auth")
 public class UserController {
-    @Autowired
-    private JwtUtil jwtUtil;
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
     @Autowired
     private UserService userService;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserImportService userImportService;
+
+    @Autowired
+    private AuthRateLimiter authRateLimiter;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private TokenIntrospectionService tokenIntrospectionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@RequestBody SignupRequest signupRequest) {
+    public ResponseEntity<?> registerUser(@RequestBody SignupRequest signupRequest, HttpServletRequest request) {
+        long retryAfterMillis = authRateLimiter.tryAcquire(request.getRemoteAddr(), signupRequest.getEmail());
+        if (retryAfterMillis > 0) {
+            auditLog.record(AuditLog.Event.REGISTER, AuditLog.Outcome.RATE_LIMITED, signupRequest.getEmail());
+            return tooManyRequests(retryAfterMillis);
+        }
         try {
             return ResponseEntity.ok(userService.register(signupRequest));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (PasswordHashingBusyException e) {
+            return serviceUnavailable(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                                  .body(Map.of("message", "Erreur serveur"));
@@ -71,20 +102,15 @@ public class UserController {
         try {
             // ✅ Extraire le token du header
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                auditLog.record(AuditLog.Event.CREATE_USER, AuditLog.Outcome.UNAUTHORIZED, request.getEmail());
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("message", "Missing or invalid Authorization header"));
             }
 
-            String token = authHeader.replace("Bearer ", "");
-
-            // ✅ Extraire le nom d'utilisateur et charger les détails
-            String username = jwtUtil.extractUsername(token);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-            // ✅ Valider le token
-            if (!jwtUtil.validateToken(token, userDetails)) {
-                throw new BadCredentialsException("Invalid or expired token");
-            }
+            // ✅ Valider le token (une seule vérification de signature)
+            VerifiedToken caller = requireAccessToken(authHeader);
+            auditLog.record(AuditLog.Event.CREATE_USER, AuditLog.Outcome.SUCCESS, AuditLog.UNKNOWN_USER,
+                    request.getEmail(), caller.getSubject());
 
             // ✅ Simuler la création d'utilisateur
             Map<String, Object> response = new HashMap<>();
@@ -94,18 +120,98 @@ public class UserController {
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
+            auditLog.record(AuditLog.Event.CREATE_USER, AuditLog.Outcome.UNAUTHORIZED, request.getEmail());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("message", "Unauthorized: " + e.getMessage()));
         }
     }
 
+    /**
+     * Création d'utilisateurs en masse : tableau JSON (ou NDJSON) de {@link CreateUserRequest},
+     * lu en flux. Retourne le résultat ligne par ligne (créé, doublon, invalide).
+     */
+    @PostMapping("/create/bulk")
+    public ResponseEntity<?> createUsersBulk(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            HttpServletRequest request) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            auditLog.record(AuditLog.Event.CREATE_USERS_BULK, AuditLog.Outcome.UNAUTHORIZED, null);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Missing or invalid Authorization header"));
+        }
+        VerifiedToken verified;
+        try {
+            verified = requireAccessToken(authHeader);
+        } catch (Exception e) {
+            auditLog.record(AuditLog.Event.CREATE_USERS_BULK, AuditLog.Outcome.UNAUTHORIZED, null);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Unauthorized: " + e.getMessage()));
+        }
+        String caller = verified.getSubject();
+        // Les lignes peuvent porter n'importe quel rôle, ADMIN compris : réservé aux administrateurs
+        if (!ADMIN_AUTHORITY.equals(verified.getRole())) {
+            auditLog.record(AuditLog.Event.CREATE_USERS_BULK, AuditLog.Outcome.FORBIDDEN, AuditLog.UNKNOWN_USER, null, caller);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("message", "Accès réservé aux administrateurs"));
+        }
+
+        try {
+            BulkImportResult result = userImportService.importUsers(request.getInputStream());
+            auditLog.record(AuditLog.Event.CREATE_USERS_BULK,
+                    result.isComplete() ? AuditLog.Outcome.SUCCESS : AuditLog.Outcome.ERROR,
+                    AuditLog.UNKNOWN_USER, null, caller);
+            // Import interrompu : les lignes déjà traitées sont rapportées avec la raison de l'arrêt
+            if (result.isComplete()) {
+                return ResponseEntity.ok(result);
+            }
+            if (result.getRetryAfterSeconds() > 0) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(result.getRetryAfterSeconds()))
+                        .body(result);
+            }
+            return ResponseEntity.badRequest().body(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                                 .body(Map.of("message", "Erreur serveur"));
+        }
+    }
+
+    // Statut de refus (401 sans token d'accès valide, 403 hors administrateur), ou null si l'appelant est admin
+    private HttpStatus checkAdmin(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return HttpStatus.UNAUTHORIZED;
+        }
+        try {
+            return ADMIN_AUTHORITY.equals(requireAccessToken(authHeader).getRole()) ? null : HttpStatus.FORBIDDEN;
+        } catch (Exception e) {
+            return HttpStatus.UNAUTHORIZED;
+        }
+    }
+
+    private static String rejectionMessage(HttpStatus status) {
+        return status == HttpStatus.FORBIDDEN ? "Accès réservé aux administrateurs" : "Unauthorized";
+    }
+
+    // Mêmes contrôles que le filtre JWT (version des tokens et liste de révocation comprises), sans requête SQL
+    private VerifiedToken requireAccessToken(String authHeader) {
+        return userService.requireAccessToken(authHeader.substring(7));
+    }
+
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        // Limité avant BCrypt : une rafale de tentatives ne consomme pas le pool de hachage
+        long retryAfterMillis = authRateLimiter.tryAcquire(request.getRemoteAddr(), loginRequest.getEmail());
+        if (retryAfterMillis > 0) {
+            auditLog.record(AuditLog.Event.LOGIN, AuditLog.Outcome.RATE_LIMITED, loginRequest.getEmail());
+            return tooManyRequests(retryAfterMillis);
+        }
         try {
             return ResponseEntity.ok(userService.login(loginRequest));
         } catch (BadCredentialsException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                                  .body(Map.of("message", e.getMessage()));
+        } catch (PasswordHashingBusyException e) {
+            return serviceUnavailable(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                                  .body(Map.of("message", "Erreur serveur"));
@@ -125,13 +231,173 @@ public class UserController {
         }
     }
 
+    /**
+     * Révoque le token d'accès du header et, s'il est dans le corps ({@code refreshToken}), le token de
+     * rafraîchissement de la même session.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestBody(required = false) Map<String, String> payload) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Missing or invalid Authorization header"));
+        }
+        try {
+            userService.logout(authHeader.substring(7), payload != null ? payload.get("refreshToken") : null);
+            return ResponseEntity.ok(Map.of("message", "Déconnecté"));
+        } catch (BadCredentialsException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", "Erreur serveur"));
+        }
+    }
 
+    /**
+     * Déconnexion de toutes les sessions : tous les tokens déjà émis à l'utilisateur du header sont révoqués.
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Missing or invalid Authorization header"));
+        }
+        try {
+            userService.logoutAll(authHeader.substring(7));
+            return ResponseEntity.ok(Map.of("message", "Toutes les sessions ont été déconnectées"));
+        } catch (BadCredentialsException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", "Erreur serveur"));
+        }
+    }
 
+    /**
+     * Changement de mot de passe ({@code currentPassword}, {@code newPassword}) : révoque ensuite toutes les
+     * sessions de l'utilisateur, qui doit se reconnecter.
+     */
+    @PostMapping("/password")
+    public ResponseEntity<?> changePassword(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestBody Map<String, String> payload,
+            HttpServletRequest request) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Missing or invalid Authorization header"));
+        }
+        // Le mot de passe actuel se devine comme à la connexion : même limitation par IP
+        long retryAfterMillis = authRateLimiter.tryAcquire(request.getRemoteAddr(), null);
+        if (retryAfterMillis > 0) {
+            return tooManyRequests(retryAfterMillis);
+        }
+        try {
+            userService.changePassword(authHeader.substring(7), payload.get("currentPassword"),
+                    payload.get("newPassword"));
+            return ResponseEntity.ok(Map.of("message", "Mot de passe modifié, reconnectez-vous"));
+        } catch (BadCredentialsException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (PasswordHashingBusyException e) {
+            return serviceUnavailable(e);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", "Erreur serveur"));
+        }
+    }
 
+    /**
+     * Révocation d'un token compromis (RFC 7009) : toujours 200, que le token ait été valide ou non.
+     */
+    @PostMapping("/revoke")
+    public ResponseEntity<?> revoke(@RequestBody Map<String, String> payload) {
+        try {
+            userService.revokeToken(payload.get("token"));
+            return ResponseEntity.ok(Map.of("message", "Token révoqué"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("message", "Erreur serveur"));
+        }
+    }
+
+    /**
+     * Introspection de tokens par lots pour les services internes : tableau JSON (ou NDJSON) de tokens en entrée,
+     * une ligne NDJSON par token en sortie ({@code active}, {@code sub}, {@code role}, {@code exp}...), dans
+     * l'ordre d'entrée et au fil de la vérification.
+     */
+    @PostMapping("/introspect")
+    public ResponseEntity<StreamingResponseBody> introspect(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            HttpServletRequest request) throws IOException {
+        // Type de retour fixe (flux asynchrone) : les erreurs sont aussi écrites comme un flux
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return streamedMessage(HttpStatus.UNAUTHORIZED, "Missing or invalid Authorization header");
+        }
+        try {
+            requireAccessToken(authHeader);
+        } catch (Exception e) {
+            return streamedMessage(HttpStatus.UNAUTHORIZED, "Unauthorized: " + e.getMessage());
+        }
+        InputStream body = request.getInputStream();
+        if (!tokenIntrospectionService.tryStartBatch()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(messageBody("Trop de lots en cours, réessayez plus tard"));
+        }
+
+        StreamingResponseBody results = out -> tokenIntrospectionService.introspect(body, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(results);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamedMessage(HttpStatus status, String message)
+            throws JsonProcessingException {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(messageBody(message));
+    }
+
+    private StreamingResponseBody messageBody(String message) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(Map.of("message", message));
+        return out -> out.write(json);
+    }
+
+    private ResponseEntity<?> tooManyRequests(long retryAfterMillis) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000))
+                .body(Map.of("message", "Trop de tentatives, réessayez plus tard"));
+    }
+
+    private ResponseEntity<?> serviceUnavailable(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("message", e.getMessage()));
+    }
 
     @GetMapping("/users")
-    public List<User> getAllUsers() {
-        return userService.getAllUsers();
+    public ResponseEntity<?> getUsers(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                      @RequestParam(defaultValue = "0") long after,
+                                      @RequestParam(defaultValue = "100") int limit,
+                                      @RequestParam(required = false) String role) {
+        HttpStatus rejected = checkAdmin(authHeader);
+        if (rejected != null) {
+            return ResponseEntity.status(rejected).body(Map.of("message", rejectionMessage(rejected)));
+        }
+        return ResponseEntity.ok(userService.getUsersPage(after, limit, role));
+    }
+
+    @GetMapping(value = "/users/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestHeader(value = "Authorization", required = false) String authHeader)
+            throws JsonProcessingException {
+        // Emails, noms et rôles de toute la table : réservé aux administrateurs, comme /create/bulk
+        HttpStatus rejected = checkAdmin(authHeader);
+        if (rejected != null) {
+            return streamedMessage(rejected, rejectionMessage(rejected));
+        }
+        StreamingResponseBody body = userService::exportUsers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 
     // DTOs internes
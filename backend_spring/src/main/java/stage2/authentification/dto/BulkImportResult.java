@@ -0,0 +1,39 @@
+package stage2.authentification.dto;
+
+import java.util.List;
+
+public class BulkImportResult {
+    private int created;
+    private int duplicates;
+    private int invalid;
+    private List<BulkImportRow> rows;
+    // Raison de l'arrêt avant la fin du corps (null si tout a été lu) ; les lignes rapportées restent valables
+    private String error;
+    private int retryAfterSeconds;
+
+    public BulkImportResult(List<BulkImportRow> rows) {
+        this(rows, null, 0);
+    }
+
+    public BulkImportResult(List<BulkImportRow> rows, String error, int retryAfterSeconds) {
+        this.rows = rows;
+        this.error = error;
+        this.retryAfterSeconds = retryAfterSeconds;
+        for (BulkImportRow row : rows) {
+            switch (row.getStatus()) {
+                case CREATED -> created++;
+                case DUPLICATE -> duplicates++;
+                case INVALID -> invalid++;
+            }
+        }
+    }
+
+    // Getters
+    public int getCreated() { return created; }
+    public int getDuplicates() { return duplicates; }
+    public int getInvalid() { return invalid; }
+    public List<BulkImportRow> getRows() { return rows; }
+    public String getError() { return error; }
+    public int getRetryAfterSeconds() { return retryAfterSeconds; }
+    public boolean isComplete() { return error == null; }
+}
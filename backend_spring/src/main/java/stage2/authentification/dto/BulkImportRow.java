@@ -0,0 +1,26 @@
+package stage2.authentification.dto;
+
+public class BulkImportRow {
+    public enum Status { CREATED, DUPLICATE, INVALID }
+
+    private int index;
+    private String email;
+    private Status status;
+    private Long id;
+    private String message;
+
+    public BulkImportRow(int index, String email, Status status, Long id, String message) {
+        this.index = index;
+        this.email = email;
+        this.status = status;
+        this.id = id;
+        this.message = message;
+    }
+
+    // Getters
+    public int getIndex() { return index; }
+    public String getEmail() { return email; }
+    public Status getStatus() { return status; }
+    public Long getId() { return id; }
+    public String getMessage() { return message; }
+}
@@ -0,0 +1,48 @@
+package stage2.authentification.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One line of the batch introspection response, with the RFC 7662 member names. An inactive token only
+ * carries its index and {@code active=false}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenIntrospection {
+    private int index;
+    private boolean active;
+    private String sub;
+    private String role;
+    private String tokenType;
+    private Long iat;
+    private Long exp;
+    private String jti;
+
+    public TokenIntrospection(int index, boolean active, String sub, String role, String tokenType,
+                              Long iat, Long exp, String jti) {
+        this.index = index;
+        this.active = active;
+        this.sub = sub;
+        this.role = role;
+        this.tokenType = tokenType;
+        this.iat = iat;
+        this.exp = exp;
+        this.jti = jti;
+    }
+
+    public static TokenIntrospection inactive(int index) {
+        return new TokenIntrospection(index, false, null, null, null, null, null, null);
+    }
+
+    // Getters
+    public int getIndex() { return index; }
+    public boolean isActive() { return active; }
+    public String getSub() { return sub; }
+    public String getRole() { return role; }
+    @JsonProperty("token_type")
+    public String getTokenType() { return tokenType; }
+    // Secondes depuis l'epoch, comme les claims iat/exp
+    public Long getIat() { return iat; }
+    public Long getExp() { return exp; }
+    public String getJti() { return jti; }
+}
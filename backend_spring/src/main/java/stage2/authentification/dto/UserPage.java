@@ -0,0 +1,21 @@
+package stage2.authentification.dto;
+
+import java.util.List;
+
+public class UserPage {
+    private List<UserDto> users;
+    private Long nextCursor;
+
+    public UserPage(List<UserDto> users, Long nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<UserDto> getUsers() { return users; }
+
+    /**
+     * Id to pass as {@code after} to fetch the next page, or null on the last page.
+     */
+    public Long getNextCursor() { return nextCursor; }
+}
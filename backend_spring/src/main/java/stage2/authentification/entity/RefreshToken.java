@@ -0,0 +1,56 @@
+package stage2.authentification.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Server-side record of an issued refresh token. Only the SHA-256 of the token id ({@code jti}) is stored.
+ * <p>
+ * Every token belongs to a family, started at login and carried over by each rotation. A token is
+ * consumed by its first use; presenting it again revokes the whole family.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at"),
+    @Index(name = "idx_refresh_tokens_family", columnList = "family"),
+    @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id")
+})
+public class RefreshToken {
+
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private long userId;
+
+    @Column(nullable = false, length = 32)
+    private String family;
+
+    // Epochs en millisecondes, comme VerifiedToken
+    @Column(name = "issued_at", nullable = false)
+    private long issuedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    // null tant que le token n'a pas servi
+    @Column(name = "consumed_at")
+    private Long consumedAt;
+
+    public RefreshToken() {}
+
+    public RefreshToken(String tokenHash, long userId, String family, long issuedAt, long expiresAt) {
+        this.tokenHash = tokenHash;
+        this.userId = userId;
+        this.family = family;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTokenHash() { return tokenHash; }
+    public long getUserId() { return userId; }
+    public String getFamily() { return family; }
+    public long getIssuedAt() { return issuedAt; }
+    public long getExpiresAt() { return expiresAt; }
+    public Long getConsumedAt() { return consumedAt; }
+}
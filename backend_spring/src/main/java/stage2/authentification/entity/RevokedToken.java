@@ -0,0 +1,40 @@
+package stage2.authentification.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Token revoked before its expiry (logout, compromised token), identified by its {@code jti} claim.
+ * A row is useless once {@code expiresAt} has passed: the token is rejected by its expiry anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"))
+public class RevokedToken {
+
+    @Id
+    @Column(length = 64)
+    private String jti;
+
+    @Column(nullable = false)
+    private String subject;
+
+    // Epoch en millisecondes, comme VerifiedToken
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private long revokedAt;
+
+    public RevokedToken() {}
+
+    public RevokedToken(String jti, String subject, long expiresAt, long revokedAt) {
+        this.jti = jti;
+        this.subject = subject;
+        this.expiresAt = expiresAt;
+        this.revokedAt = revokedAt;
+    }
+
+    public String getJti() { return jti; }
+    public String getSubject() { return subject; }
+    public long getExpiresAt() { return expiresAt; }
+    public long getRevokedAt() { return revokedAt; }
+}
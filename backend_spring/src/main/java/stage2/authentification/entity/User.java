@@ -2,12 +2,25 @@ package stage2.authentification.entity;
 
 import jakarta.persistence.*;
 
+import java.time.Instant;
+import java.util.Locale;
+
 @Entity
-@Table(name = "users")
+// Index déclarés aussi ici pour les schémas générés (profil loadtest) ; en production, voir db/migration
+@Table(name = "users", indexes = {
+    @Index(name = User.EMAIL_UNIQUE_INDEX, columnList = "email_normalized", unique = true),
+    @Index(name = "idx_users_role_id", columnList = "role, id")
+})
 public class User {
 
+    // Seul index unique sur l'email : sa violation signale un doublon (voir UserService.isDuplicateEmail)
+    public static final String EMAIL_UNIQUE_INDEX = "ux_users_email_normalized";
+
+    // Séquence à allocation groupée (pooled-lo, par 50) : indispensable au batching JDBC des INSERT,
+    // que GenerationType.IDENTITY désactive
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -16,17 +29,49 @@ public class User {
     @Column(nullable = false)
     private String lastName;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
+    // Clé de recherche et d'unicité : l'email tel que saisi reste dans email
+    @Column(name = "email_normalized", nullable = false)
+    private String emailNormalized;
+
     @Column(nullable = false)
     private String password;
 
     @Column(nullable = false, columnDefinition = "varchar(255) default 'USER'")
     private String role; // <-- Ajout du champ role
 
+    // Incrémenté pour invalider tous les tokens déjà émis (changement de mot de passe, désactivation)
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int tokenVersion;
+
+    // Écrits en différé par LoginActivityWriter (UPDATE groupés), jamais par l'entité : insertable/updatable = false
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long loginCount;
+
+    @Column(insertable = false, updatable = false)
+    private Instant lastLoginAt;
+
+    // Dernière connexion ou dernier rafraîchissement de token
+    @Column(insertable = false, updatable = false)
+    private Instant lastActivityAt;
+
     public User() {}
 
+    /**
+     * Form of an email used for lookups and uniqueness: trimmed and lower-cased.
+     */
+    public static String normalizeEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateEmailNormalized() {
+        this.emailNormalized = normalizeEmail(email);
+    }
+
     public User(Long id, String firstName, String lastName, String email, String password, String role) {
         this.id = id;
         this.firstName = firstName;
@@ -61,4 +106,13 @@ public class User {
 
     public String getRole() { return role; }
     public void setRole(String role) { this.role = role; }
+
+    public int getTokenVersion() { return tokenVersion; }
+    public void setTokenVersion(int tokenVersion) { this.tokenVersion = tokenVersion; }
+
+    public String getEmailNormalized() { return emailNormalized; }
+
+    public long getLoginCount() { return loginCount; }
+    public Instant getLastLoginAt() { return lastLoginAt; }
+    public Instant getLastActivityAt() { return lastActivityAt; }
 }
@@ -0,0 +1,50 @@
+package stage2.authentification.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One authentication operation (login, token refresh, authentication of a request by the JWT filter).
+ * The {@link AuthPhaseEvent}s emitted on the same thread during the operation break its duration down.
+ *
+ * <p>Recorded by any JFR recording, e.g. {@code -XX:StartFlightRecording:filename=auth.jfr,settings=default},
+ * and read back with {@code jfr print --events stage2.auth.Operation auth.jfr}.
+ */
+@Name("stage2.auth.Operation")
+@Label("Authentication Operation")
+@Category({"Stage2", "Authentication"})
+@Description("Login, token refresh or request authentication, with its outcome")
+@StackTrace(false)
+public class AuthOperationEvent extends Event {
+
+    public static final String LOGIN = "login";
+    public static final String REFRESH = "refresh";
+    public static final String REQUEST = "request";
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Outcome")
+    private String outcome;
+
+    /**
+     * Starts timing an operation; the event is only written once {@link #end(String)} is called.
+     */
+    public static AuthOperationEvent start(String operation) {
+        AuthOperationEvent event = new AuthOperationEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    public void end(String outcome) {
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package stage2.authentification.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One phase of an authentication operation: user lookup, password check, token signing or token verification.
+ * Emitted on the thread that waits for the phase, so a BCrypt check offloaded to the hashing pool still
+ * lands on the request thread, nested inside its {@link AuthOperationEvent}.
+ */
+@Name("stage2.auth.Phase")
+@Label("Authentication Phase")
+@Category({"Stage2", "Authentication"})
+@Description("Duration and outcome of one phase of an authentication operation")
+@StackTrace(false)
+public class AuthPhaseEvent extends Event {
+
+    public static final String LOOKUP = "lookup";
+    public static final String PASSWORD = "password";
+    public static final String SIGN = "sign";
+    public static final String VERIFY = "verify";
+
+    @Label("Phase")
+    private String phase;
+
+    @Label("Outcome")
+    private String outcome;
+
+    /**
+     * Starts timing a phase; the event is only written once {@link #end(String)} is called.
+     */
+    public static AuthPhaseEvent start(String phase) {
+        AuthPhaseEvent event = new AuthPhaseEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    public void end(String outcome) {
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package stage2.authentification.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.stereotype.Component;
+
+import stage2.authentification.activity.LoginActivityWriter;
+import stage2.authentification.audit.AuditLog;
+import stage2.authentification.security.AdaptiveConcurrencyFilter;
+import stage2.authentification.security.AdaptiveConcurrencyLimit;
+import stage2.authentification.security.AuthRateLimiter;
+import stage2.authentification.security.PasswordHashingExecutor;
+import stage2.authentification.security.RefreshTokenStore;
+import stage2.authentification.security.TokenRevocationList;
+import stage2.authentification.security.UserDetailsCache;
+import stage2.authentification.security.VerifiedTokenCache;
+import stage2.authentification.service.TokenIntrospectionService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the counters that the caches, the hashing pool and the limiters already maintain; they are only read when
+ * the registry is scraped.
+ */
+@Component
+public class AuthMeterBinder implements MeterBinder {
+
+    private final UserDetailsCache userDetailsCache;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final AuthRateLimiter authRateLimiter;
+    private final AdaptiveConcurrencyFilter concurrencyFilter;
+    private final TokenRevocationList tokenRevocationList;
+    private final RefreshTokenStore refreshTokenStore;
+    private final LoginActivityWriter loginActivityWriter;
+    private final AuditLog auditLog;
+    private final TokenIntrospectionService tokenIntrospectionService;
+
+    public AuthMeterBinder(UserDetailsCache userDetailsCache, VerifiedTokenCache verifiedTokenCache,
+                           PasswordHashingExecutor passwordHashingExecutor, AuthRateLimiter authRateLimiter,
+                           AdaptiveConcurrencyFilter concurrencyFilter, TokenRevocationList tokenRevocationList,
+                           RefreshTokenStore refreshTokenStore, LoginActivityWriter loginActivityWriter,
+                           AuditLog auditLog, TokenIntrospectionService tokenIntrospectionService) {
+        this.userDetailsCache = userDetailsCache;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.authRateLimiter = authRateLimiter;
+        this.concurrencyFilter = concurrencyFilter;
+        this.tokenRevocationList = tokenRevocationList;
+        this.refreshTokenStore = refreshTokenStore;
+        this.loginActivityWriter = loginActivityWriter;
+        this.auditLog = auditLog;
+        this.tokenIntrospectionService = tokenIntrospectionService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.user.cache.requests", userDetailsCache, UserDetailsCache::getHitCount)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("auth.user.cache.requests", userDetailsCache, UserDetailsCache::getMissCount)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("auth.user.cache.evictions", userDetailsCache, UserDetailsCache::getEvictionCount)
+                .register(registry);
+        Gauge.builder("auth.user.cache.size", userDetailsCache, UserDetailsCache::size)
+                .register(registry);
+
+        FunctionCounter.builder("auth.token.cache.requests", verifiedTokenCache, VerifiedTokenCache::getHitCount)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("auth.token.cache.requests", verifiedTokenCache, VerifiedTokenCache::getMissCount)
+                .tag("result", "miss").register(registry);
+
+        Gauge.builder("auth.password.queue.depth", passwordHashingExecutor, PasswordHashingExecutor::getQueueDepth)
+                .register(registry);
+        Gauge.builder("auth.password.active", passwordHashingExecutor, PasswordHashingExecutor::getActiveCount)
+                .register(registry);
+        FunctionCounter.builder("auth.password.rejected", passwordHashingExecutor, PasswordHashingExecutor::getRejectedCount)
+                .description("Hashing tasks refused because the queue was full (HTTP 503)")
+                .register(registry);
+        FunctionTimer.builder("auth.password.queue.wait", passwordHashingExecutor,
+                        PasswordHashingExecutor::getCompletedCount,
+                        PasswordHashingExecutor::getTotalWaitNanos, TimeUnit.NANOSECONDS)
+                .description("Time hashing tasks spent queued before a pool thread picked them up")
+                .register(registry);
+
+        FunctionCounter.builder("auth.ratelimit.rejected", authRateLimiter, AuthRateLimiter::getRejectedByIpCount)
+                .tag("key", "ip").description("Login/register requests answered 429").register(registry);
+        FunctionCounter.builder("auth.ratelimit.rejected", authRateLimiter, AuthRateLimiter::getRejectedByEmailCount)
+                .tag("key", "email").description("Login/register requests answered 429").register(registry);
+
+        for (AdaptiveConcurrencyLimit limit : concurrencyFilter.getLimits()) {
+            Gauge.builder("auth.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("group", limit.getName()).register(registry);
+            Gauge.builder("auth.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInflight)
+                    .tag("group", limit.getName()).register(registry);
+            FunctionCounter.builder("auth.concurrency.rejected", limit, AdaptiveConcurrencyLimit::getRejectedCount)
+                    .tag("group", limit.getName()).description("Requests shed with 503 by the concurrency limit")
+                    .register(registry);
+        }
+
+        Gauge.builder("auth.revocation.size", tokenRevocationList, TokenRevocationList::size)
+                .description("Revoked tokens not yet expired").register(registry);
+        FunctionCounter.builder("auth.revocation.filter.positives", tokenRevocationList,
+                        TokenRevocationList::getRevokedHitCount)
+                .tag("result", "revoked").register(registry);
+        FunctionCounter.builder("auth.revocation.filter.positives", tokenRevocationList,
+                        TokenRevocationList::getFalsePositiveCount)
+                .tag("result", "false_positive")
+                .description("Bloom filter hits that the exact set did not confirm").register(registry);
+
+        FunctionCounter.builder("auth.refresh.tokens", refreshTokenStore, RefreshTokenStore::getRotatedCount)
+                .tag("result", RefreshTokenStore.Outcome.ROTATED.getTag()).register(registry);
+        FunctionCounter.builder("auth.refresh.tokens", refreshTokenStore, RefreshTokenStore::getReusedCount)
+                .tag("result", RefreshTokenStore.Outcome.REUSED.getTag())
+                .description("Refresh tokens presented twice; their family was revoked").register(registry);
+        FunctionCounter.builder("auth.refresh.tokens", refreshTokenStore, RefreshTokenStore::getUnknownCount)
+                .tag("result", RefreshTokenStore.Outcome.UNKNOWN.getTag()).register(registry);
+        FunctionCounter.builder("auth.refresh.purged", refreshTokenStore, RefreshTokenStore::getPurgedCount)
+                .description("Expired refresh_tokens rows deleted by the purge job").register(registry);
+        Gauge.builder("auth.refresh.index.size", refreshTokenStore, RefreshTokenStore::getIndexSize)
+                .register(registry);
+
+        FunctionCounter.builder("auth.activity.events", loginActivityWriter, LoginActivityWriter::getRecordedCount)
+                .tag("result", "recorded").register(registry);
+        FunctionCounter.builder("auth.activity.events", loginActivityWriter, LoginActivityWriter::getDroppedCount)
+                .tag("result", "dropped")
+                .description("Login/refresh events lost because the buffer was full").register(registry);
+        FunctionCounter.builder("auth.activity.rows", loginActivityWriter, LoginActivityWriter::getFlushedRowCount)
+                .tag("result", "written").register(registry);
+        FunctionCounter.builder("auth.activity.rows", loginActivityWriter, LoginActivityWriter::getFailedRowCount)
+                .tag("result", "failed").register(registry);
+        FunctionCounter.builder("auth.activity.flushes", loginActivityWriter, LoginActivityWriter::getFlushCount)
+                .description("Batched users updates").register(registry);
+        Gauge.builder("auth.activity.buffer.size", loginActivityWriter, LoginActivityWriter::getBufferSize)
+                .register(registry);
+        Gauge.builder("auth.activity.buffer.capacity", loginActivityWriter, LoginActivityWriter::getBufferCapacity)
+                .register(registry);
+
+        FunctionCounter.builder("auth.audit.records", auditLog, AuditLog::getWrittenCount)
+                .tag("result", "written").register(registry);
+        FunctionCounter.builder("auth.audit.records", auditLog, AuditLog::getDroppedCount)
+                .tag("result", "dropped")
+                .description("Audit records lost because the buffer was full").register(registry);
+        FunctionCounter.builder("auth.audit.records", auditLog, AuditLog::getFailedCount)
+                .tag("result", "failed")
+                .description("Audit records that could not be written to a segment").register(registry);
+        Gauge.builder("auth.audit.buffer.size", auditLog, AuditLog::getBufferSize)
+                .register(registry);
+        Gauge.builder("auth.audit.segment", auditLog, AuditLog::getSegmentSequence)
+                .description("Sequence number of the segment being written").register(registry);
+
+        FunctionCounter.builder("auth.introspection.tokens", tokenIntrospectionService,
+                        TokenIntrospectionService::getActiveCount)
+                .tag("result", "active").register(registry);
+        FunctionCounter.builder("auth.introspection.tokens", tokenIntrospectionService,
+                        TokenIntrospectionService::getInactiveCount)
+                .tag("result", "inactive").register(registry);
+        FunctionCounter.builder("auth.introspection.batches.rejected", tokenIntrospectionService,
+                        TokenIntrospectionService::getRejectedBatchCount)
+                .description("Batches refused with 503: max-concurrent-batches already running").register(registry);
+    }
+}
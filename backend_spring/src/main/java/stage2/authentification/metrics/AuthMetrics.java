@@ -0,0 +1,97 @@
+package stage2.authentification.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.stereotype.Component;
+
+import stage2.authentification.security.TokenType;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers of the authentication pipeline. Every meter is registered once up front so that recording on
+ * the hot path is a field read plus {@link Timer#record(long, TimeUnit)}, without tag lookups.
+ */
+@Component
+public class AuthMetrics {
+
+    public enum VerifyOutcome {
+        OK, EXPIRED, BAD_SIGNATURE, MALFORMED;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private final Timer passwordHash;
+    private final Timer passwordMatch;
+    private final Timer passwordMismatch;
+    private final Timer signAccess;
+    private final Timer signRefresh;
+    private final Timer[] verify = new Timer[VerifyOutcome.values().length];
+    private final Timer lookupFound;
+    private final Timer lookupNotFound;
+
+    public AuthMetrics(MeterRegistry registry) {
+        passwordHash = Timer.builder("auth.password.hash")
+                .description("BCrypt hashing, including the wait for the hashing pool")
+                .register(registry);
+        passwordMatch = passwordVerify(registry, "match");
+        passwordMismatch = passwordVerify(registry, "mismatch");
+        signAccess = tokenSign(registry, TokenType.ACCESS);
+        signRefresh = tokenSign(registry, TokenType.REFRESH);
+        for (VerifyOutcome outcome : VerifyOutcome.values()) {
+            verify[outcome.ordinal()] = Timer.builder("auth.token.verify")
+                    .description("JWT parsing and signature verification")
+                    .tag("outcome", outcome.getTag())
+                    .register(registry);
+        }
+        lookupFound = userLookup(registry, "found");
+        lookupNotFound = userLookup(registry, "not_found");
+    }
+
+    public void recordPasswordHash(long nanos) {
+        passwordHash.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPasswordVerify(boolean matched, long nanos) {
+        (matched ? passwordMatch : passwordMismatch).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTokenSign(TokenType type, long nanos) {
+        (type == TokenType.ACCESS ? signAccess : signRefresh).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTokenVerify(VerifyOutcome outcome, long nanos) {
+        verify[outcome.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUserLookup(boolean found, long nanos) {
+        (found ? lookupFound : lookupNotFound).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer passwordVerify(MeterRegistry registry, String outcome) {
+        return Timer.builder("auth.password.verify")
+                .description("BCrypt verification, including the wait for the hashing pool")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Timer tokenSign(MeterRegistry registry, TokenType type) {
+        return Timer.builder("auth.token.sign")
+                .description("JWT minting and signing")
+                .tag("type", type.getClaimValue())
+                .register(registry);
+    }
+
+    private static Timer userLookup(MeterRegistry registry, String outcome) {
+        return Timer.builder("auth.user.lookup")
+                .description("users-table lookup by email (user cache misses)")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
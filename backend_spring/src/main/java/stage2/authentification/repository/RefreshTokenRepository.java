@@ -0,0 +1,37 @@
+package stage2.authentification.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import stage2.authentification.entity.RefreshToken;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+	// Un seul appelant peut passer consumed_at de null à une date : la base arbitre entre instances
+	@Modifying
+	@Transactional
+	@Query("update RefreshToken r set r.consumedAt = :now where r.tokenHash = :tokenHash and r.consumedAt is null")
+	int markConsumed(@Param("tokenHash") String tokenHash, @Param("now") long now);
+
+	@Modifying
+	@Transactional
+	@Query("delete from RefreshToken r where r.family = :family")
+	int deleteFamily(@Param("family") String family);
+
+	// Chaque famille vivante a exactement un token non consommé : le plus récent
+	@Query("select r.family from RefreshToken r where r.userId = :userId and r.consumedAt is null "
+			+ "and r.expiresAt > :now order by r.issuedAt desc")
+	List<String> findLiveFamilies(@Param("userId") long userId, @Param("now") long now);
+
+	// Suppression par lots bornés : chaque lot est une courte transaction sur l'index expires_at
+	@Modifying
+	@Transactional
+	@Query(value = "delete from refresh_tokens where token_hash in "
+			+ "(select token_hash from refresh_tokens where expires_at <= :now limit :batchSize)", nativeQuery = true)
+	int deleteExpiredBatch(@Param("now") long now, @Param("batchSize") int batchSize);
+}
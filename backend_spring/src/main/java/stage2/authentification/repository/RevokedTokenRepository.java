@@ -0,0 +1,22 @@
+package stage2.authentification.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import stage2.authentification.entity.RevokedToken;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+	@Query("select r from RevokedToken r where r.expiresAt > :now")
+	List<RevokedToken> findActive(@Param("now") long now);
+
+	@Modifying
+	@Transactional
+	@Query("delete from RevokedToken r where r.expiresAt <= :now")
+	int deleteExpired(@Param("now") long now);
+}
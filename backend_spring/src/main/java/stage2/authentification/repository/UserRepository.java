@@ -1,11 +1,86 @@
 package stage2.authentification.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
+import stage2.authentification.dto.UserDto;
 import stage2.authentification.entity.User;
 
 public interface UserRepository extends JpaRepository<User, Long> {
-	Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+	// Insensible à la casse : passe par l'index unique sur email_normalized
+	default Optional<User> findByEmail(String email) {
+		return findByEmailNormalized(User.normalizeEmail(email));
+	}
+
+	Optional<User> findByEmailNormalized(String emailNormalized);
+
+	default boolean existsByEmail(String email) {
+		return existsByEmailNormalized(User.normalizeEmail(email));
+	}
+
+	boolean existsByEmailNormalized(String emailNormalized);
+
+	// Emails normalisés déjà présents parmi ceux donnés (eux aussi normalisés)
+	@Query("select u.emailNormalized from User u where u.emailNormalized in :emails")
+	List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+	// Pagination par clé (id) : pas d'OFFSET, chaque page est une lecture d'index
+	@Query("select new stage2.authentification.dto.UserDto(u.id, u.email, u.firstName, u.lastName, u.role) "
+			+ "from User u where u.id > :afterId order by u.id")
+	List<UserDto> findPageAfter(@Param("afterId") long afterId, Limit limit);
+
+	// Même pagination restreinte à un rôle : index (role, id)
+	@Query("select new stage2.authentification.dto.UserDto(u.id, u.email, u.firstName, u.lastName, u.role) "
+			+ "from User u where u.role = :role and u.id > :afterId order by u.id")
+	List<UserDto> findPageAfterByRole(@Param("role") String role, @Param("afterId") long afterId, Limit limit);
+
+	// Curseur côté serveur : à consommer dans une transaction et à fermer
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+		@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select new stage2.authentification.dto.UserDto(u.id, u.email, u.firstName, u.lastName, u.role) "
+			+ "from User u order by u.id")
+	Stream<UserDto> streamAllUsers();
+
+	@Query("select u.emailNormalized, u.tokenVersion from User u where u.tokenVersion > 0")
+	List<Object[]> findRevokedTokenVersions();
+
+	// Requêtes par email : normalisé comme pour findByEmail, elles passent par l'index unique sur email_normalized
+	default Optional<Integer> findTokenVersionByEmail(String email) {
+		return findTokenVersionByEmailNormalized(User.normalizeEmail(email));
+	}
+
+	@Query("select u.tokenVersion from User u where u.emailNormalized = :email")
+	Optional<Integer> findTokenVersionByEmailNormalized(@Param("email") String emailNormalized);
+
+	default int updatePassword(String email, String password) {
+		return updatePasswordByEmailNormalized(User.normalizeEmail(email), password);
+	}
+
+	@Modifying
+	@Transactional
+	@Query("update User u set u.password = :password where u.emailNormalized = :email")
+	int updatePasswordByEmailNormalized(@Param("email") String emailNormalized, @Param("password") String password);
+
+	default int incrementTokenVersion(String email) {
+		return incrementTokenVersionByEmailNormalized(User.normalizeEmail(email));
+	}
+
+	@Modifying
+	@Transactional
+	@Query("update User u set u.tokenVersion = u.tokenVersion + 1 where u.emailNormalized = :email")
+	int incrementTokenVersionByEmailNormalized(@Param("email") String emailNormalized);
+}
@@ -0,0 +1,103 @@
+package stage2.authentification.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sheds load per endpoint group with a 503 as soon as the group's {@link AdaptiveConcurrencyLimit} is
+ * reached, instead of letting requests queue in Tomcat until they time out. Password endpoints (BCrypt)
+ * and token endpoints get separate limits, so a login storm does not starve {@code /refresh}.
+ * Paths outside the groups are not limited.
+ * <p>
+ * Added to the Spring Security chain by {@link SecurityConfig}, ahead of token verification.
+ */
+@Component
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final byte[] BODY = "{\"message\":\"Service surchargé, réessayez plus tard\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final boolean enabled;
+    private final Map<String, AdaptiveConcurrencyLimit> limitsByPath = new HashMap<>();
+    private final List<AdaptiveConcurrencyLimit> limits;
+
+    public AdaptiveConcurrencyFilter(
+            @Value("${security.concurrency.enabled:true}") boolean enabled,
+            @Value("${security.concurrency.password.paths:/api/auth/login,/api/auth/register,/api/auth/create,/api/auth/create/bulk,/api/auth/password}") Set<String> passwordPaths,
+            @Value("${security.concurrency.password.initial-limit:16}") int passwordInitial,
+            @Value("${security.concurrency.password.min-limit:2}") int passwordMin,
+            @Value("${security.concurrency.password.max-limit:256}") int passwordMax,
+            @Value("${security.concurrency.token.paths:/api/auth/refresh,/api/auth/users,/api/auth/logout,/api/auth/revoke,/api/auth/logout-all}") Set<String> tokenPaths,
+            @Value("${security.concurrency.token.initial-limit:64}") int tokenInitial,
+            @Value("${security.concurrency.token.min-limit:4}") int tokenMin,
+            @Value("${security.concurrency.token.max-limit:1024}") int tokenMax,
+            @Value("${security.concurrency.smoothing:0.2}") double smoothing,
+            @Value("${security.concurrency.long-window:600}") int longWindow) {
+        this.enabled = enabled;
+        AdaptiveConcurrencyLimit password = new AdaptiveConcurrencyLimit(
+                "password", passwordInitial, passwordMin, passwordMax, smoothing, longWindow);
+        AdaptiveConcurrencyLimit token = new AdaptiveConcurrencyLimit(
+                "token", tokenInitial, tokenMin, tokenMax, smoothing, longWindow);
+        passwordPaths.forEach(path -> limitsByPath.put(path, password));
+        tokenPaths.forEach(path -> limitsByPath.put(path, token));
+        this.limits = List.of(password, token);
+    }
+
+    public List<AdaptiveConcurrencyLimit> getLimits() {
+        return limits;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !limitsByPath.containsKey(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimit limit = limitsByPath.get(request.getServletPath());
+        int inflight = limit.tryAcquire();
+        if (inflight == 0) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(BODY);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            int status = response.getStatus();
+            if (!completed || status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                // Erreur ou client limité (429, rapide par construction) : ni mesure ni signal de surcharge
+                limit.onIgnore();
+            } else if (status == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                // Pool de hachage saturé en aval : on réduit la limite
+                limit.onDropped();
+            } else {
+                limit.onSuccess(System.nanoTime() - start, inflight);
+            }
+        }
+    }
+}
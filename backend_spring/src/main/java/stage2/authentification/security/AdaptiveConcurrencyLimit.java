@@ -0,0 +1,134 @@
+package stage2.authentification.security;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit of one endpoint group, adjusted from observed latency (gradient algorithm).
+ * <p>
+ * A long-term average of the response time is the "no queueing" reference. Each completed request moves
+ * the limit towards {@code limit * gradient + sqrt(limit)}, where {@code gradient = tolerance * longRtt / rtt}
+ * is clamped to [0.5, 1]: while latency stays near the reference the limit grows by about its square root,
+ * and once requests start queueing (latency above tolerance times the reference) it shrinks, at most by half.
+ * A request dropped downstream (e.g. 503 from the full hashing queue) cuts the limit by 10%.
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double longRttFactor;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile int limit;
+
+    // ReentrantLock plutôt que synchronized : un thread virtuel en attente d'un moniteur bloque son porteur (JDK 21)
+    private final ReentrantLock lock = new ReentrantLock();
+    // Protégés par lock : mis à jour à chaque fin de requête, lus seulement sous le verrou
+    private double estimatedLimit;
+    private double longRtt;
+
+    /**
+     * @param smoothing  weight of each new estimate, in (0, 1]
+     * @param longWindow number of samples averaged in the reference response time
+     */
+    public AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit,
+                                    double smoothing, int longWindow) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.longRttFactor = 2.0 / (longWindow + 1);
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Admits a request if fewer than {@link #getLimit()} are in flight.
+     *
+     * @return the number of requests in flight including this one, or 0 if it must be rejected
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return 0;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Releases a request that completed normally and feeds its response time to the limit.
+     *
+     * @param inflightAtStart value returned by {@link #tryAcquire()}
+     */
+    public void onSuccess(long rttNanos, int inflightAtStart) {
+        inflight.decrementAndGet();
+        sample(rttNanos, inflightAtStart);
+    }
+
+    /**
+     * Releases a request that was shed further down (overload signal): the limit backs off.
+     */
+    public void onDropped() {
+        inflight.decrementAndGet();
+        lock.lock();
+        try {
+            setEstimate(estimatedLimit * DROP_BACKOFF);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a request whose response time says nothing about load (error, client-side throttling).
+     */
+    public void onIgnore() {
+        inflight.decrementAndGet();
+    }
+
+    private void sample(long rttNanos, int inflightAtStart) {
+        lock.lock();
+        try {
+            adjust(rttNanos, inflightAtStart);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(long rttNanos, int inflightAtStart) {
+        double rtt = Math.max(1, rttNanos);
+        longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) * longRttFactor;
+        // Saturation prolongée : la référence ne doit pas dériver vers la latence dégradée
+        if (longRtt > 2 * rtt) {
+            longRtt *= 0.95;
+        }
+        // Requêtes peu nombreuses : la latence ne dit rien sur la limite, on ne la fait pas grandir
+        if (inflightAtStart < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / rtt));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        setEstimate(estimatedLimit * (1 - smoothing) + target * smoothing);
+    }
+
+    private void setEstimate(double value) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, value));
+        limit = (int) estimatedLimit;
+    }
+
+    public String getName() { return name; }
+    public int getLimit() { return limit; }
+    public int getInflight() { return inflight.get(); }
+    public long getRejectedCount() { return rejected.sum(); }
+}
@@ -0,0 +1,49 @@
+package stage2.authentification.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Throttles the endpoints that run BCrypt for anonymous callers (login and register), before any hashing:
+ * one bucket per client IP against bursts from a single source, and one per email against credential
+ * stuffing spread over many addresses.
+ */
+@Component
+public class AuthRateLimiter {
+
+    private final boolean enabled;
+    private final TokenBucketLimiter byIp;
+    private final TokenBucketLimiter byEmail;
+
+    public AuthRateLimiter(@Value("${security.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${security.rate-limit.slots:1048576}") int slots,
+                           @Value("${security.rate-limit.ip.burst:20}") int ipBurst,
+                           @Value("${security.rate-limit.ip.per-minute:60}") double ipPerMinute,
+                           @Value("${security.rate-limit.email.burst:5}") int emailBurst,
+                           @Value("${security.rate-limit.email.per-minute:5}") double emailPerMinute) {
+        this.enabled = enabled;
+        // Désactivé : pas de tables allouées
+        int size = enabled ? slots : 2;
+        this.byIp = new TokenBucketLimiter(size, ipBurst, ipPerMinute);
+        this.byEmail = new TokenBucketLimiter(size, emailBurst, emailPerMinute);
+    }
+
+    /**
+     * Takes a token for the client address, then for the email if there is one.
+     *
+     * @return 0 if the request may proceed, otherwise the milliseconds before retrying
+     */
+    public long tryAcquire(String clientIp, String email) {
+        if (!enabled) {
+            return 0;
+        }
+        long wait = byIp.tryAcquire(clientIp != null ? clientIp : "");
+        if (wait == 0 && email != null) {
+            wait = byEmail.tryAcquire(email.trim());
+        }
+        return wait;
+    }
+
+    public long getRejectedByIpCount() { return byIp.getRejectedCount(); }
+    public long getRejectedByEmailCount() { return byEmail.getRejectedCount(); }
+}
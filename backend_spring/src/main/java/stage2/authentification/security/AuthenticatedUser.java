@@ -0,0 +1,74 @@
+package stage2.authentification.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import stage2.authentification.entity.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable snapshot of a {@link User} row used as the security principal, so the data loaded for
+ * authentication is reused for token minting and for the {@code UserDto} of the response.
+ * <p>
+ * It deliberately does not implement {@code CredentialsContainer}: instances are shared through
+ * {@link UserDetailsCache} and must not have their password erased after authentication.
+ */
+public final class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String password;
+    private final String role;
+    private final int tokenVersion;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String email, String firstName, String lastName,
+                             String password, String role, int tokenVersion) {
+        this.id = id;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.password = password;
+        this.role = role;
+        this.tokenVersion = tokenVersion;
+        this.authorities = AuthorityUtils.createAuthorityList(UserDetailsServiceImpl.roleAuthority(role));
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(
+            user.getId(),
+            user.getEmail(),
+            user.getFirstName(),
+            user.getLastName(),
+            user.getPassword(),
+            user.getRole(),
+            user.getTokenVersion()
+        );
+    }
+
+    public AuthenticatedUser withPassword(String newPassword) {
+        return new AuthenticatedUser(id, email, firstName, lastName, newPassword, role, tokenVersion);
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getEmail() { return email; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public String getRole() { return role; }
+    public int getTokenVersion() { return tokenVersion; }
+
+    @Override
+    public String getUsername() { return email; }
+
+    @Override
+    public String getPassword() { return password; }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() { return authorities; }
+}
@@ -0,0 +1,66 @@
+package stage2.authentification.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the BCrypt work factor at startup: the highest cost whose hashing time on this machine stays
+ * within {@code security.password.bcrypt.target-millis}, clamped to [min-strength, max-strength].
+ * A positive {@code security.password.bcrypt.strength} skips the measurement and is used as is.
+ */
+@Component
+public class BCryptCostCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    private static final String SAMPLE_PASSWORD = "calibration-P4ssw0rd!";
+
+    private final int strength;
+
+    public BCryptCostCalibrator(@Value("${security.password.bcrypt.strength:0}") int configuredStrength,
+                                @Value("${security.password.bcrypt.target-millis:250}") long targetMillis,
+                                @Value("${security.password.bcrypt.min-strength:10}") int minStrength,
+                                @Value("${security.password.bcrypt.max-strength:14}") int maxStrength) {
+        if (configuredStrength > 0) {
+            this.strength = configuredStrength;
+            log.info("BCrypt strength fixed by configuration: {}", strength);
+        } else {
+            this.strength = calibrate(targetMillis, minStrength, maxStrength);
+        }
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        long targetNanos = targetMillis * 1_000_000L;
+
+        // Premier passage pour chauffer le JIT, puis mesure au coût minimal
+        measure(minStrength);
+        long base = measure(minStrength);
+
+        // Chaque point de coût double le temps : on extrapole puis on vérifie
+        int cost = minStrength;
+        while (cost < maxStrength && base << (cost + 1 - minStrength) <= targetNanos) {
+            cost++;
+        }
+        while (cost > minStrength && measure(cost) > targetNanos) {
+            cost--;
+        }
+
+        log.info("BCrypt strength calibrated to {} (target {} ms, cost {} took {} ms)",
+                cost, targetMillis, minStrength, base / 1_000_000L);
+        return cost;
+    }
+
+    private static long measure(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE_PASSWORD);
+        return System.nanoTime() - start;
+    }
+}
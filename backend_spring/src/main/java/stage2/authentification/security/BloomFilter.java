@@ -0,0 +1,87 @@
+package stage2.authentification.security;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings; adds and lookups are lock-free and may run concurrently.
+ * <p>
+ * {@link #mightContain(CharSequence)} never misses a key that was added. A key that was never added is
+ * reported present with a probability of about {@code falsePositiveRate} once {@code expectedEntries} keys
+ * are in. Keys cannot be removed: the owner builds a new filter from its exact set instead.
+ */
+public final class BloomFilter {
+
+    private static final int MAX_HASHES = 16;
+
+    private final AtomicLongArray words;
+    private final long bitMask;
+    private final int hashCount;
+    // Graine aléatoire, comme pour TokenBucketLimiter : les collisions ne se préparent pas à l'avance
+    private final long seed = ThreadLocalRandom.current().nextLong();
+
+    /**
+     * @param expectedEntries   number of keys the filter is sized for
+     * @param falsePositiveRate target false positive rate at {@code expectedEntries} keys, in (0, 1)
+     */
+    public BloomFilter(int expectedEntries, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate doit être entre 0 et 1 : " + falsePositiveRate);
+        }
+        int entries = Math.max(1, expectedEntries);
+        double optimalBits = -entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        // Puissance de deux (au moins un mot) : l'indice d'un bit est un simple masque
+        long bits = Math.max(64, Long.highestOneBit((long) Math.ceil(optimalBits) - 1) << 1);
+        this.words = new AtomicLongArray((int) (bits >>> 6));
+        this.bitMask = bits - 1;
+        this.hashCount = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(optimalBits / entries * Math.log(2))));
+    }
+
+    public void add(CharSequence key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 + 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, added) -> current | added);
+            }
+        }
+    }
+
+    public boolean mightContain(CharSequence key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 + 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() { return bitMask + 1; }
+    public int getHashCount() { return hashCount; }
+
+    /**
+     * FNV-1a over the characters, then the MurmurHash3 finalizer; allocates nothing.
+     */
+    private long hash(CharSequence key) {
+        long h = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -7,13 +7,18 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import stage2.authentification.jfr.AuthOperationEvent;
+
 import java.io.IOException;
 
 @Component
@@ -25,32 +30,63 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    // true : l'authentification est construite uniquement à partir des claims du token, sans requête SQL
+    @Value("${security.jwt.stateless:true}")
+    private boolean stateless;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwt = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            username = jwtUtil.extractUsername(jwt);
-        }
+            AuthOperationEvent event = AuthOperationEvent.start(AuthOperationEvent.REQUEST);
+            // Token invalide ou expiré : aucune exception, la requête continue sans authentification
+            TokenCheck check = verifiedTokenCache.getOrCheck(authHeader.substring(7), jwtUtil::check);
+            VerifiedToken token = check.getToken();
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (!check.isValid()) {
+                event.end(check.getStatus().getTag());
+            } else if (token.getType() != TokenType.ACCESS) {
+                event.end("wrong_type");
+            } else if (!tokenVersionRegistry.isCurrent(token.getSubject(), token.getTokenVersion())
+                    || tokenRevocationList.isRevoked(token.getId())) {
+                // Vérifié après le cache : un token révoqué reste refusé même s'il y est encore
+                event.end("revoked");
+            } else if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                UserDetails userDetails = stateless
+                        ? userDetailsFromClaims(token)
+                        : this.userDetailsService.loadUserByUsername(token.getSubject());
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                event.end("authenticated");
+            } else {
+                event.end("already_authenticated");
             }
         }
 
         filterChain.doFilter(request, response);
     }
-}
 
+    private UserDetails userDetailsFromClaims(VerifiedToken token) {
+        String role = token.getRole() != null ? token.getRole() : "ROLE_USER";
+        return User.withUsername(token.getSubject())
+                .password("")
+                .authorities(AuthorityUtils.createAuthorityList(role))
+                .build();
+    }
+}
@@ -0,0 +1,273 @@
+package stage2.authentification.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ES256 (P-256) signing keys used when {@code security.jwt.algorithm=ES256}.
+ *
+ * <p>Each key becomes the signing key at its {@code notBefore} instant. The next key is generated and
+ * published on the JWKS endpoint {@code publish-ahead} before that instant, so consumers that cache the
+ * key set have it before the first token signed with it. A replaced key stays published and accepted
+ * for {@code retired-ttl}, which must outlive the longest token it signed.
+ *
+ * <p>With {@code security.jwt.keys.directory} set, keys are stored there (one properties file per key)
+ * and re-read before each rotation check, so instances sharing the directory sign and publish the same keys.
+ * Without it, keys live in memory and every restart starts a new ring.
+ */
+@Component
+@ConditionalOnProperty(name = "security.jwt.algorithm", havingValue = "ES256")
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private static final String CURVE = "secp256r1";
+    private static final String KEY_FILE_SUFFIX = ".key.properties";
+
+    private final Duration rotationPeriod;
+    private final Duration publishAhead;
+    private final Duration retiredTtl;
+    private final Path directory;
+    private final SecureRandom random = new SecureRandom();
+    // Pas de synchronized autour d'entrées/sorties fichier : le planificateur peut tourner sur des threads virtuels
+    private final ReentrantLock rotationLock = new ReentrantLock();
+
+    // Trié par notBefore croissant ; remplacé en bloc à chaque rotation, lu sans verrou
+    private volatile List<SigningKey> keys = List.of();
+
+    public JwtKeyRing(@Value("${security.jwt.keys.rotation-period:7d}") Duration rotationPeriod,
+                      @Value("${security.jwt.keys.publish-ahead:15m}") Duration publishAhead,
+                      @Value("${security.jwt.keys.retired-ttl:10m}") Duration retiredTtl,
+                      @Value("${security.jwt.keys.directory:}") String directory) {
+        this.rotationPeriod = rotationPeriod;
+        this.publishAhead = publishAhead;
+        this.retiredTtl = retiredTtl;
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+        rotate();
+    }
+
+    /**
+     * Key that signs new tokens: the most recent key whose {@code notBefore} has passed.
+     */
+    public SigningKey activeKey() {
+        List<SigningKey> current = keys;
+        long now = System.currentTimeMillis();
+        for (int i = current.size() - 1; i >= 0; i--) {
+            if (current.get(i).getNotBefore() <= now) {
+                return current.get(i);
+            }
+        }
+        // Pas encore de clé active (horloges décalées entre instances) : la plus ancienne publiée
+        return current.get(0);
+    }
+
+    /**
+     * Published key with this id, or {@code null} if it is unknown or was retired.
+     */
+    public SigningKey find(String kid) {
+        for (SigningKey key : keys) {
+            if (key.getKid().equals(kid)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keys to publish on the JWKS endpoint: the upcoming, active and recently retired keys.
+     */
+    public List<SigningKey> publishedKeys() {
+        return keys;
+    }
+
+    /**
+     * Generates the next key when its publication is due and drops the keys retired for longer than
+     * {@code retired-ttl}.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.keys.check-interval:60000}",
+               initialDelayString = "${security.jwt.keys.check-interval:60000}")
+    public void rotate() {
+        rotationLock.lock();
+        try {
+            doRotate();
+        } finally {
+            rotationLock.unlock();
+        }
+    }
+
+    private void doRotate() {
+        List<SigningKey> ring = new ArrayList<>(directory != null ? loadAll() : keys);
+        ring.sort(Comparator.comparingLong(SigningKey::getNotBefore));
+        long now = System.currentTimeMillis();
+
+        if (ring.isEmpty()) {
+            ring.add(store(generate(now)));
+        }
+        SigningKey latest = ring.get(ring.size() - 1);
+        long nextNotBefore = latest.getNotBefore() + rotationPeriod.toMillis();
+        if (nextNotBefore - publishAhead.toMillis() <= now) {
+            SigningKey next = store(generate(Math.max(nextNotBefore, now + publishAhead.toMillis())));
+            ring.add(next);
+            log.info("JWT signing key {} published, signs from {}", next.getKid(),
+                    Instant.ofEpochMilli(next.getNotBefore()));
+        }
+
+        // Une clé remplacée reste acceptée retired-ttl après l'activation de sa remplaçante
+        List<SigningKey> kept = new ArrayList<>(ring.size());
+        for (int i = 0; i < ring.size(); i++) {
+            SigningKey key = ring.get(i);
+            boolean retired = i + 1 < ring.size()
+                    && ring.get(i + 1).getNotBefore() + retiredTtl.toMillis() <= now;
+            if (retired) {
+                delete(key);
+                log.info("JWT signing key {} retired", key.getKid());
+            } else {
+                kept.add(key);
+            }
+        }
+        keys = List.copyOf(kept);
+    }
+
+    private SigningKey generate(long notBefore) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec(CURVE), random);
+            KeyPair pair = generator.generateKeyPair();
+            byte[] id = new byte[12];
+            random.nextBytes(id);
+            String kid = Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+            return new SigningKey(kid, pair.getPrivate(), (ECPublicKey) pair.getPublic(), notBefore);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Impossible de générer une clé " + CURVE, e);
+        }
+    }
+
+    private SigningKey store(SigningKey key) {
+        if (directory == null) {
+            return key;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("kid", key.getKid());
+        properties.setProperty("notBefore", Long.toString(key.getNotBefore()));
+        properties.setProperty("private", Base64.getEncoder().encodeToString(key.getPrivateKey().getEncoded()));
+        properties.setProperty("public", Base64.getEncoder().encodeToString(key.getPublicKey().getEncoded()));
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, key.getKid(), ".tmp");
+            try {
+                Files.setPosixFilePermissions(tmp, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // Système de fichiers non POSIX : on garde les droits par défaut
+            }
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                properties.store(out, "JWT ES256 signing key");
+            }
+            // Écriture atomique : une autre instance ne lit jamais un fichier à moitié écrit
+            Files.move(tmp, directory.resolve(key.getKid() + KEY_FILE_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'enregistrer la clé JWT " + key.getKid(), e);
+        }
+        return key;
+    }
+
+    private List<SigningKey> loadAll() {
+        List<SigningKey> loaded = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return loaded;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + KEY_FILE_SUFFIX)) {
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            for (Path file : files) {
+                Properties properties = new Properties();
+                try (InputStream in = Files.newInputStream(file)) {
+                    properties.load(in);
+                }
+                PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(
+                        Base64.getDecoder().decode(properties.getProperty("private"))));
+                ECPublicKey publicKey = (ECPublicKey) keyFactory.generatePublic(new X509EncodedKeySpec(
+                        Base64.getDecoder().decode(properties.getProperty("public"))));
+                loaded.add(new SigningKey(properties.getProperty("kid"), privateKey, publicKey,
+                        Long.parseLong(properties.getProperty("notBefore"))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de lire les clés JWT de " + directory, e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Clé JWT illisible dans " + directory, e);
+        }
+        return loaded;
+    }
+
+    private void delete(SigningKey key) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(key.getKid() + KEY_FILE_SUFFIX));
+        } catch (IOException e) {
+            log.warn("Could not delete retired JWT key {}", key.getKid(), e);
+        }
+    }
+
+    public static final class SigningKey {
+
+        private final String kid;
+        private final PrivateKey privateKey;
+        private final ECPublicKey publicKey;
+        private final long notBefore;
+
+        SigningKey(String kid, PrivateKey privateKey, ECPublicKey publicKey, long notBefore) {
+            this.kid = kid;
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.notBefore = notBefore;
+        }
+
+        public String getKid() {
+            return kid;
+        }
+
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+
+        public ECPublicKey getPublicKey() {
+            return publicKey;
+        }
+
+        public long getNotBefore() {
+            return notBefore;
+        }
+    }
+}
@@ -1,16 +1,34 @@
 package stage2.authentification.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import stage2.authentification.jfr.AuthPhaseEvent;
+import stage2.authentification.metrics.AuthMetrics;
+import stage2.authentification.metrics.AuthMetrics.VerifyOutcome;
+
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
 
 import javax.crypto.SecretKey;
 
@@ -19,12 +37,46 @@ public class JwtUtil {
 
 	private final String SECRET_KEY = "your_secret_key_your_secret_key_123456"; // should be at least 256 bits
 
-	private SecretKey getSigningKey() {
-	    byte[] keyBytes = SECRET_KEY.getBytes(StandardCharsets.UTF_8);
-	    return Keys.hmacShaKeyFor(keyBytes);
+	private static final String ROLE_CLAIM = "role";
+	private static final String TYPE_CLAIM = "type";
+	private static final String VERSION_CLAIM = "ver";
+
+	public static final long REFRESH_TOKEN_TTL_MILLIS = 1000L * 60 * 2;
+
+	@Autowired
+	private TokenVersionRegistry tokenVersionRegistry;
+
+	@Autowired
+	private AuthMetrics authMetrics;
+
+	// Présent uniquement avec security.jwt.algorithm=ES256 ; sinon signature HS256 avec le secret partagé
+	@Autowired(required = false)
+	private JwtKeyRing keyRing;
+
+	// La clé et le parser sont immuables et thread-safe : on les construit une seule fois
+	private final SecretKey signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+	private JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+	@PostConstruct
+	void init() {
+	    if (keyRing != null) {
+	        // ES256 : la clé publique est choisie d'après l'en-tête kid ; les tokens HS256 sont refusés
+	        parser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+	            @Override
+	            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+	                JwtKeyRing.SigningKey key = header.getKeyId() != null ? keyRing.find(header.getKeyId()) : null;
+	                if (key == null || !SignatureAlgorithm.ES256.getValue().equals(header.getAlgorithm())) {
+	                    throw new SignatureException("Clé de signature inconnue ou algorithme inattendu");
+	                }
+	                return key.getPublicKey();
+	            }
+	        }).build();
+	    }
 	}
 
 	public String generateToken(UserDetails userDetails) {
+	    long start = System.nanoTime();
+	    AuthPhaseEvent event = AuthPhaseEvent.start(AuthPhaseEvent.SIGN);
 	    // Récupère le rôle principal, ou "USER" par défaut si aucun rôle n’est défini
 	    String role = userDetails.getAuthorities().stream()
 	        .findFirst()
@@ -32,49 +84,160 @@ public class JwtUtil {
 	        .orElse("ROLE_USER");
 
 	    // Crée et retourne le token JWT
-	    return Jwts.builder()
+	    JwtBuilder builder = Jwts.builder()
+	        .setId(newTokenId())
 	        .setSubject(userDetails.getUsername())
-	        .claim("role", role)
+	        .claim(ROLE_CLAIM, role)
+	        .claim(TYPE_CLAIM, TokenType.ACCESS.getClaimValue())
+	        .claim(VERSION_CLAIM, tokenVersionRegistry.currentVersion(userDetails.getUsername()))
 	        .setIssuedAt(new Date(System.currentTimeMillis()))
-	        .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 )) // 15 min
-	        .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-	        .compact();
+	        .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 )); // 15 min
+	    String token = sign(builder);
+	    authMetrics.recordTokenSign(TokenType.ACCESS, System.nanoTime() - start);
+	    event.end(TokenType.ACCESS.getClaimValue());
+	    return token;
 	}
 	
 	public String generateRefreshToken(UserDetails userDetails) {
-	    return Jwts.builder()
+	    return generateRefreshToken(userDetails, newTokenId());
+	}
+
+	/**
+	 * Refresh token with a given id, already recorded in {@link RefreshTokenStore}.
+	 */
+	public String generateRefreshToken(UserDetails userDetails, String tokenId) {
+	    long start = System.nanoTime();
+	    AuthPhaseEvent event = AuthPhaseEvent.start(AuthPhaseEvent.SIGN);
+	    JwtBuilder builder = Jwts.builder()
+	        .setId(tokenId)
 	        .setSubject(userDetails.getUsername())
+	        .claim(TYPE_CLAIM, TokenType.REFRESH.getClaimValue())
+	        .claim(VERSION_CLAIM, tokenVersionRegistry.currentVersion(userDetails.getUsername()))
 	        .setIssuedAt(new Date())
-	        .setExpiration(new Date(System.currentTimeMillis() + 1000L * 60 * 2)) // 24 hours
-	        .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+	        .setExpiration(new Date(System.currentTimeMillis() + REFRESH_TOKEN_TTL_MILLIS));
+	    String token = sign(builder);
+	    authMetrics.recordTokenSign(TokenType.REFRESH, System.nanoTime() - start);
+	    event.end(TokenType.REFRESH.getClaimValue());
+	    return token;
+	}
+
+	// 128 bits aléatoires : seule l'unicité compte (clé de TokenRevocationList), pas l'imprévisibilité
+	public static String newTokenId() {
+	    ThreadLocalRandom random = ThreadLocalRandom.current();
+	    byte[] id = ByteBuffer.allocate(16).putLong(random.nextLong()).putLong(random.nextLong()).array();
+	    return Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+	}
+
+	private String sign(JwtBuilder builder) {
+	    if (keyRing == null) {
+	        return builder.signWith(signingKey, SignatureAlgorithm.HS256).compact();
+	    }
+	    JwtKeyRing.SigningKey key = keyRing.activeKey();
+	    return builder
+	        .setHeaderParam(JwsHeader.KEY_ID, key.getKid())
+	        .signWith(key.getPrivateKey(), SignatureAlgorithm.ES256)
 	        .compact();
 	}
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
+	/**
+	 * Parses the token once, checking signature and expiry, and returns its claims.
+	 *
+	 * @throws JwtException if the token is malformed, badly signed or expired
+	 * @throws IllegalArgumentException if the token is null or blank
+	 */
+	public VerifiedToken verify(String token) {
+	    long start = System.nanoTime();
+	    AuthPhaseEvent event = AuthPhaseEvent.start(AuthPhaseEvent.VERIFY);
+	    try {
+	        VerifiedToken verified = parse(token);
+	        recordVerify(event, VerifyOutcome.OK, start);
+	        return verified;
+	    } catch (ExpiredJwtException e) {
+	        recordVerify(event, VerifyOutcome.EXPIRED, start);
+	        throw e;
+	    } catch (SignatureException e) {
+	        recordVerify(event, VerifyOutcome.BAD_SIGNATURE, start);
+	        throw e;
+	    } catch (JwtException | IllegalArgumentException e) {
+	        recordVerify(event, VerifyOutcome.MALFORMED, start);
+	        throw e;
+	    }
+	}
 
-    public String extractUsername(String token) {
-        return extractClaims(token).getSubject();
-    }
+	/**
+	 * Same outcome as {@link #verify(String)}, reported as a result instead of an exception. Tokens that are
+	 * structurally invalid or already expired are rejected by {@link TokenPrecheck} without any signature
+	 * work or exception, which keeps garbage and stale Bearer headers cheap.
+	 */
+	public TokenCheck check(String token) {
+	    long start = System.nanoTime();
+	    AuthPhaseEvent event = AuthPhaseEvent.start(AuthPhaseEvent.VERIFY);
+	    int signatureLength = keyRing == null
+	            ? TokenPrecheck.HS256_SIGNATURE_LENGTH
+	            : TokenPrecheck.ES256_SIGNATURE_LENGTH;
+	    switch (TokenPrecheck.check(token, System.currentTimeMillis(), signatureLength)) {
+	        case MALFORMED:
+	            recordVerify(event, VerifyOutcome.MALFORMED, start);
+	            return TokenCheck.MALFORMED;
+	        case EXPIRED:
+	            recordVerify(event, VerifyOutcome.EXPIRED, start);
+	            return TokenCheck.EXPIRED;
+	        default:
+	            break;
+	    }
+	    // Token plausible : vérification complète (signature et claims), qui trace sa propre phase
+	    try {
+	        return TokenCheck.valid(verify(token));
+	    } catch (ExpiredJwtException e) {
+	        return TokenCheck.EXPIRED;
+	    } catch (SignatureException e) {
+	        return TokenCheck.BAD_SIGNATURE;
+	    } catch (JwtException | IllegalArgumentException e) {
+	        return TokenCheck.MALFORMED;
+	    }
+	}
 
-    public Date extractExpiration(String token) {
-        return extractClaims(token).getExpiration();
-    }
+	private void recordVerify(AuthPhaseEvent event, VerifyOutcome outcome, long start) {
+	    authMetrics.recordTokenVerify(outcome, System.nanoTime() - start);
+	    event.end(outcome.getTag());
+	}
 
-    private Claims extractClaims(String token) {
-        
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+	private VerifiedToken parse(String token) {
+	    Claims claims = parser.parseClaimsJws(token).getBody();
+	    String role = claims.get(ROLE_CLAIM, String.class);
+	    TokenType type = TokenType.fromClaim(claims.get(TYPE_CLAIM, String.class));
+	    if (type == null) {
+	        // Tokens émis avant l'ajout du claim "type" : seul le token d'accès porte un rôle
+	        type = role != null ? TokenType.ACCESS : TokenType.REFRESH;
+	    }
+	    Integer version = claims.get(VERSION_CLAIM, Integer.class);
+	    Date issuedAt = claims.getIssuedAt();
+	    Date expiration = claims.getExpiration();
+	    if (expiration == null) {
+	        throw new MalformedJwtException("JWT sans date d'expiration");
+	    }
+	    return new VerifiedToken(
+	        claims.getSubject(),
+	        role,
+	        issuedAt != null ? issuedAt.getTime() : 0L,
+	        expiration.getTime(),
+	        type,
+	        version != null ? version : 0,
+	        claims.getId()
+	    );
+	}
 
-    }
+	public Boolean validateToken(String token, UserDetails userDetails) {
+	    VerifiedToken verified = verify(token);
+	    return verified.getSubject().equals(userDetails.getUsername())
+	        && !verified.isExpired(System.currentTimeMillis());
+	}
 
+	public String extractUsername(String token) {
+	    return verify(token).getSubject();
+	}
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
+	public Date extractExpiration(String token) {
+	    return new Date(verify(token).getExpiresAt());
+	}
 }
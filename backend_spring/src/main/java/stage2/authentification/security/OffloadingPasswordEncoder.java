@@ -0,0 +1,71 @@
+package stage2.authentification.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import stage2.authentification.jfr.AuthPhaseEvent;
+import stage2.authentification.metrics.AuthMetrics;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link PasswordEncoder} that runs the (CPU-bound) hashing and verification of its delegate on the
+ * {@link PasswordHashingExecutor} instead of the calling request thread.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+    private final AuthMetrics metrics;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor, AuthMetrics metrics) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        AuthPhaseEvent event = AuthPhaseEvent.start(AuthPhaseEvent.PASSWORD);
+        String encoded;
+        try {
+            encoded = executor.execute(() -> delegate.encode(rawPassword));
+        } catch (PasswordHashingBusyException e) {
+            event.end("busy");
+            throw e;
+        }
+        metrics.recordPasswordHash(System.nanoTime() - start);
+        event.end("hashed");
+        return encoded;
+    }
+
+    /**
+     * Hashes on the pool without blocking the caller, for bulk work that hashes many passwords in parallel.
+     *
+     * @throws PasswordHashingBusyException if the queue is full
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return executor.submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        AuthPhaseEvent event = AuthPhaseEvent.start(AuthPhaseEvent.PASSWORD);
+        boolean matched;
+        try {
+            matched = executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+        } catch (PasswordHashingBusyException e) {
+            event.end("busy");
+            throw e;
+        }
+        metrics.recordPasswordVerify(matched, System.nanoTime() - start);
+        event.end(matched ? "match" : "mismatch");
+        return matched;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,18 @@
+package stage2.authentification.security;
+
+/**
+ * Thrown when the password hashing queue is full; the request should be retried later (HTTP 503).
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public PasswordHashingBusyException(int retryAfterSeconds) {
+        super("Service temporairement surchargé, réessayez plus tard");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,116 @@
+package stage2.authentification.security;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated pool for BCrypt work, sized to the number of CPUs, with a bounded queue.
+ * <p>
+ * Request threads hand the hash over and wait for it, so a login spike can only occupy as many cores as
+ * this pool has threads. When the queue is full the task is refused immediately with a
+ * {@link PasswordHashingBusyException} instead of piling up behind the CPU.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} this pool is what keeps BCrypt off the carrier threads:
+ * a virtual request thread parks on the returned future and frees its carrier while the hash runs here.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int retryAfterSeconds;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    public PasswordHashingExecutor(@Value("${security.password.hashing.threads:0}") int threads,
+                                   @Value("${security.password.hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${security.password.hashing.retry-after-seconds:1}") int retryAfterSeconds) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // Threads de plateforme explicites, même quand les requêtes tournent sur des threads virtuels
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("bcrypt-", 1).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Runs the task on the hashing pool and waits for its result.
+     *
+     * @throws PasswordHashingBusyException if the queue is full
+     */
+    public <T> T execute(Supplier<T> task) {
+        CompletableFuture<T> future = submit(task);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Queues the task on the hashing pool without waiting for it.
+     *
+     * @throws PasswordHashingBusyException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long submittedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long waited = System.nanoTime() - submittedAt;
+                totalWaitNanos.add(waited);
+                maxWaitNanos.accumulate(waited);
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException(retryAfterSeconds);
+        }
+        return result;
+    }
+
+    public int getPoolSize() { return executor.getMaximumPoolSize(); }
+    public int getQueueDepth() { return executor.getQueue().size(); }
+    public int getQueueCapacity() { return executor.getQueue().size() + executor.getQueue().remainingCapacity(); }
+    public int getActiveCount() { return executor.getActiveCount(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public long getCompletedCount() { return completed.sum(); }
+    public long getTotalWaitNanos() { return totalWaitNanos.sum(); }
+
+    /**
+     * Longest time a task spent queued since the previous call.
+     */
+    public long getMaxWaitNanosAndReset() { return maxWaitNanos.getThenReset(); }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,242 @@
+package stage2.authentification.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import stage2.authentification.entity.RefreshToken;
+import stage2.authentification.repository.RefreshTokenRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Refresh tokens are single use: each refresh consumes the presented token and issues its successor in the
+ * same family. Presenting a consumed token means two parties hold it, so the whole family (the legitimate
+ * client's newest token included) is revoked and the user has to log in again.
+ * <p>
+ * Tokens are stored in {@code refresh_tokens} under the SHA-256 of their id. An in-memory index of the tokens
+ * issued or seen by this instance answers the lookup; the database is read only for tokens issued elsewhere
+ * or before a restart. Consumption itself is a conditional {@code UPDATE}, so two instances can never both
+ * accept the same token.
+ */
+@Component
+public class RefreshTokenStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenStore.class);
+
+    public enum Outcome {
+        ROTATED, REUSED, UNKNOWN;
+
+        public String getTag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final RefreshTokenRepository repository;
+    private final int maxSessionsPerUser;
+    private final int indexMaxSize;
+    private final int purgeBatchSize;
+
+    // hash du jti -> token ; familles partagées par leurs tokens pour une révocation en O(1)
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    private final LongAdder rotated = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder unknown = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+
+    public RefreshTokenStore(RefreshTokenRepository repository,
+                             @Value("${security.refresh-tokens.max-sessions-per-user:10}") int maxSessionsPerUser,
+                             @Value("${security.refresh-tokens.index.max-size:100000}") int indexMaxSize,
+                             @Value("${security.refresh-tokens.purge.batch-size:10000}") int purgeBatchSize) {
+        this.repository = repository;
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.indexMaxSize = indexMaxSize;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    /**
+     * Starts a new family (a login). Beyond {@code max-sessions-per-user} live families, the oldest ones are
+     * revoked.
+     */
+    public String newFamily(long userId) {
+        if (maxSessionsPerUser > 0) {
+            List<String> live = repository.findLiveFamilies(userId, System.currentTimeMillis());
+            for (int i = maxSessionsPerUser - 1; i < live.size(); i++) {
+                revokeFamily(live.get(i));
+            }
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return HexFormat.of().toHexDigits(random.nextLong()) + HexFormat.of().toHexDigits(random.nextLong());
+    }
+
+    /**
+     * Records a refresh token before it is handed out.
+     */
+    public void register(String jti, long userId, String family, long expiresAt) {
+        String hash = hash(jti);
+        long now = System.currentTimeMillis();
+        repository.save(new RefreshToken(hash, userId, family, now, expiresAt));
+        remember(hash, userId, family, expiresAt, false);
+    }
+
+    /**
+     * Consumes a refresh token whose signature and expiry were already checked.
+     *
+     * @return {@link Outcome#ROTATED} if this call consumed it and its successor may be issued in
+     *         {@link #familyOf(String)}; otherwise the token must be refused
+     */
+    public Outcome consume(String jti) {
+        if (jti == null) {
+            unknown.increment();
+            return Outcome.UNKNOWN;
+        }
+        String hash = hash(jti);
+        long now = System.currentTimeMillis();
+        Entry entry = lookup(hash);
+        if (entry == null || entry.family.revoked || entry.expiresAt <= now) {
+            unknown.increment();
+            return Outcome.UNKNOWN;
+        }
+        // Déjà consommé ici, ou par une autre instance (l'UPDATE ne touche aucune ligne) : réutilisation
+        if (entry.consumed || repository.markConsumed(hash, now) == 0) {
+            entry.consumed = true;
+            reused.increment();
+            log.warn("Refresh token reuse detected, revoking family {} of user {}", entry.family.id, entry.userId);
+            revokeFamily(entry.family.id);
+            return Outcome.REUSED;
+        }
+        entry.consumed = true;
+        rotated.increment();
+        return Outcome.ROTATED;
+    }
+
+    /**
+     * Family of a token known to this instance, e.g. right after {@link #consume(String)}.
+     */
+    public String familyOf(String jti) {
+        Entry entry = jti != null ? lookup(hash(jti)) : null;
+        return entry != null ? entry.family.id : null;
+    }
+
+    /**
+     * Revokes the family of this token (logout, compromised token). Unknown tokens are ignored.
+     */
+    public void revoke(String jti) {
+        String family = familyOf(jti);
+        if (family != null) {
+            revokeFamily(family);
+        }
+    }
+
+    public void revokeFamily(String familyId) {
+        Family family = families.get(familyId);
+        if (family != null) {
+            family.revoked = true;
+        }
+        repository.deleteFamily(familyId);
+    }
+
+    /**
+     * Deletes expired rows in batches of {@code purge.batch-size}, each in its own short transaction, instead of
+     * one huge delete (long locks, one burst of dead tuples) or one delete per row.
+     */
+    @Scheduled(fixedDelayString = "${security.refresh-tokens.purge.interval:300000}",
+               initialDelayString = "${security.refresh-tokens.purge.interval:300000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int deleted;
+        do {
+            deleted = repository.deleteExpiredBatch(now, purgeBatchSize);
+            purged.add(deleted);
+        } while (deleted == purgeBatchSize);
+        index.values().removeIf(entry -> entry.expiresAt <= now);
+        families.values().removeIf(family -> family.expiresAt <= now);
+    }
+
+    private Entry lookup(String hash) {
+        Entry entry = index.get(hash);
+        if (entry != null) {
+            return entry;
+        }
+        // Émis par une autre instance ou avant un redémarrage
+        RefreshToken row = repository.findById(hash).orElse(null);
+        if (row == null) {
+            return null;
+        }
+        return remember(hash, row.getUserId(), row.getFamily(), row.getExpiresAt(), row.getConsumedAt() != null);
+    }
+
+    private Entry remember(String hash, long userId, String familyId, long expiresAt, boolean consumed) {
+        Family family = families.computeIfAbsent(familyId, Family::new);
+        family.extendTo(expiresAt);
+        Entry entry = new Entry(userId, family, expiresAt, consumed);
+        // Index plein : le token reste valable, sa recherche passera par la base
+        if (index.size() < indexMaxSize) {
+            index.put(hash, entry);
+        }
+        return entry;
+    }
+
+    static String hash(String jti) {
+        byte[] digest = SHA_256.get().digest(jti.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    public int getIndexSize() { return index.size(); }
+    public long getRotatedCount() { return rotated.sum(); }
+    public long getReusedCount() { return reused.sum(); }
+    public long getUnknownCount() { return unknown.sum(); }
+    public long getPurgedCount() { return purged.sum(); }
+
+    private static final class Entry {
+        final long userId;
+        final Family family;
+        final long expiresAt;
+        volatile boolean consumed;
+
+        Entry(long userId, Family family, long expiresAt, boolean consumed) {
+            this.userId = userId;
+            this.family = family;
+            this.expiresAt = expiresAt;
+            this.consumed = consumed;
+        }
+    }
+
+    private static final class Family {
+        final String id;
+        volatile boolean revoked;
+        // Expiration du token le plus récent : la famille peut être oubliée ensuite
+        volatile long expiresAt;
+
+        Family(String id) {
+            this.id = id;
+        }
+
+        void extendTo(long tokenExpiresAt) {
+            if (tokenExpiresAt > expiresAt) {
+                expiresAt = tokenExpiresAt;
+            }
+        }
+    }
+}
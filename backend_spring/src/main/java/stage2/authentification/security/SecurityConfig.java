@@ -4,14 +4,16 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import stage2.authentification.metrics.AuthMetrics;
+
 @EnableWebSecurity
 @Configuration
 public class SecurityConfig {
@@ -19,6 +21,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtFilter;
 
+    @Autowired
+    private AdaptiveConcurrencyFilter concurrencyFilter;
+
 //    @Autowired
 //    private UserDetailsServiceImpl userDetailsService;
 
@@ -29,8 +34,12 @@ public class SecurityConfig {
         .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
         .authorizeHttpRequests(auth -> auth
             .requestMatchers("/api/auth/**").permitAll()
+            .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+            .requestMatchers("/.well-known/jwks.json").permitAll()
             .anyRequest().authenticated()
         );
+        // Délestage avant toute vérification de token, puis authentification JWT
+        http.addFilterBefore(concurrencyFilter, UsernamePasswordAuthenticationFilter.class);
         http.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -39,13 +48,27 @@ public class SecurityConfig {
 
     
     
+    // Appliqué uniquement dans la chaîne Spring Security, pas une seconde fois par le conteneur
+    @Bean
+    public FilterRegistrationBean<AdaptiveConcurrencyFilter> adaptiveConcurrencyFilterRegistration(
+            AdaptiveConcurrencyFilter filter) {
+        FilterRegistrationBean<AdaptiveConcurrencyFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
     }
 
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public OffloadingPasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor,
+                                                     BCryptCostCalibrator bcryptCostCalibrator,
+                                                     AuthMetrics authMetrics) {
+        // BCrypt tourne sur un pool dédié et borné, pas sur les threads Tomcat
+        return new OffloadingPasswordEncoder(
+                new CostAwareBCryptPasswordEncoder(bcryptCostCalibrator.getStrength()),
+                passwordHashingExecutor, authMetrics);
     }
 }
\ No newline at end of file
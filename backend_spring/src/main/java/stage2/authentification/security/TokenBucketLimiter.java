@@ -0,0 +1,151 @@
+package stage2.authentification.security;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets for an unbounded key space in a fixed {@link AtomicLongArray}: no locks, no per-key objects.
+ * <p>
+ * Each slot packs a whole bucket into one {@code long}, updated with a single CAS:
+ * <pre>
+ *   63..48  key fingerprint (16 bits, 0 = empty slot)
+ *   47..32  tokens, fixed point with 8 fractional bits (at most 255 tokens)
+ *   31..0   time of the last update, milliseconds since the limiter was created (wraps after ~49 days)
+ * </pre>
+ * A key hashes to a set of two adjacent slots. When neither holds its fingerprint, the new bucket replaces
+ * the slot with the most tokens: an idle bucket has refilled to full and carries no information, so a busy
+ * table only forgets the keys that are not being limited. Two keys sharing a set and a fingerprint (about
+ * 1 in 65536 per set) share a bucket.
+ */
+public final class TokenBucketLimiter {
+
+    private static final int TOKEN_SHIFT = 8;
+    private static final long ONE_TOKEN = 1L << TOKEN_SHIFT;
+    private static final long MAX_TOKENS = 255;
+    private static final long TIME_MASK = 0xFFFF_FFFFL;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long capacity;
+    private final double refillPerMilli;
+    private final long origin = System.currentTimeMillis();
+    // Graine aléatoire : les collisions de hachage ne sont pas prévisibles d'un processus à l'autre
+    private final long seed = ThreadLocalRandom.current().nextLong();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param slots           number of buckets kept (rounded up to a power of two), 8 bytes each
+     * @param burst           bucket size, at most 255 tokens
+     * @param refillPerMinute tokens added per minute
+     */
+    public TokenBucketLimiter(int slots, int burst, double refillPerMinute) {
+        if (burst < 1 || burst > MAX_TOKENS) {
+            throw new IllegalArgumentException("burst doit être entre 1 et " + MAX_TOKENS + " : " + burst);
+        }
+        int size = Integer.highestOneBit(Math.max(2, slots - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.capacity = burst * ONE_TOKEN;
+        this.refillPerMilli = refillPerMinute * ONE_TOKEN / 60_000d;
+    }
+
+    /**
+     * Takes one token from the bucket of {@code key} (case-insensitive).
+     *
+     * @return 0 if the request may proceed, otherwise the milliseconds until a token is available
+     */
+    public long tryAcquire(CharSequence key) {
+        long hash = hash(key);
+        long fingerprint = (hash >>> 48) == 0 ? 1 : hash >>> 48;
+        int first = (int) hash & mask & ~1;
+
+        while (true) {
+            long now = (System.currentTimeMillis() - origin) & TIME_MASK;
+            long a = slots.get(first);
+            long b = slots.get(first + 1);
+            int index;
+            long current;
+            long state;
+            if (fingerprint(a) == fingerprint) {
+                index = first;
+                current = a;
+                state = refill(a, now);
+            } else if (fingerprint(b) == fingerprint) {
+                index = first + 1;
+                current = b;
+                state = refill(b, now);
+            } else {
+                // Clé absente : nouveau seau plein, à la place du plus rempli des deux
+                index = tokens(refill(a, now)) >= tokens(refill(b, now)) ? first : first + 1;
+                current = index == first ? a : b;
+                state = (capacity << 32) | now;
+            }
+
+            long tokens = tokens(state);
+            if (tokens < ONE_TOKEN) {
+                rejected.increment();
+                return (long) Math.ceil((ONE_TOKEN - tokens) / refillPerMilli);
+            }
+            long updated = (fingerprint << 48) | ((tokens - ONE_TOKEN) << 32) | (state & TIME_MASK);
+            if (slots.compareAndSet(index, current, updated)) {
+                return 0;
+            }
+        }
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private static long fingerprint(long slot) {
+        return slot >>> 48;
+    }
+
+    private static long tokens(long slot) {
+        return (slot >>> 32) & 0xFFFF;
+    }
+
+    /**
+     * Slot as of {@code now}, without its fingerprint. The timestamp only advances by the time the added
+     * tokens account for, so that frequent calls do not lose the fractional refill in between.
+     */
+    private long refill(long slot, long now) {
+        if (slot == 0) {
+            return (capacity << 32) | now;
+        }
+        long tokens = tokens(slot);
+        long last = slot & TIME_MASK;
+        long elapsed = (now - last) & TIME_MASK;
+        long added = (long) (elapsed * refillPerMilli);
+        if (tokens + added >= capacity) {
+            return (capacity << 32) | now;
+        }
+        if (added == 0) {
+            return (tokens << 32) | last;
+        }
+        long used = Math.min(elapsed, (long) Math.ceil(added / refillPerMilli));
+        return ((tokens + added) << 32) | ((last + used) & TIME_MASK);
+    }
+
+    /**
+     * FNV-1a over the lower-cased characters, then the MurmurHash3 finalizer; allocates nothing.
+     */
+    private long hash(CharSequence key) {
+        long h = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            h = (h ^ c) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,45 @@
+package stage2.authentification.security;
+
+import java.util.Locale;
+
+/**
+ * Outcome of {@link JwtUtil#check(String)}: the verified claims, or why the token was rejected.
+ * Rejections are shared constants, so rejecting a token allocates nothing here.
+ */
+public final class TokenCheck {
+
+    public enum Status {
+        VALID, MALFORMED, EXPIRED, BAD_SIGNATURE;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+
+        /** Lower-case name, for metrics and events. */
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    public static final TokenCheck MALFORMED = new TokenCheck(Status.MALFORMED, null);
+    public static final TokenCheck EXPIRED = new TokenCheck(Status.EXPIRED, null);
+    public static final TokenCheck BAD_SIGNATURE = new TokenCheck(Status.BAD_SIGNATURE, null);
+
+    private final Status status;
+    private final VerifiedToken token;
+
+    private TokenCheck(Status status, VerifiedToken token) {
+        this.status = status;
+        this.token = token;
+    }
+
+    public static TokenCheck valid(VerifiedToken token) {
+        return new TokenCheck(Status.VALID, token);
+    }
+
+    public Status getStatus() { return status; }
+    public boolean isValid() { return status == Status.VALID; }
+
+    /**
+     * Verified claims, or {@code null} unless {@link #isValid()}.
+     */
+    public VerifiedToken getToken() { return token; }
+}
@@ -0,0 +1,175 @@
+package stage2.authentification.security;
+
+import java.util.Arrays;
+
+/**
+ * Cheap structural screening of a compact JWS before any signature work: three base64url segments, JSON
+ * header and payload, a signature of the expected length, and an {@code exp} claim not in the past.
+ * <p>
+ * Runs without exceptions and with a single small allocation (the decoded payload). It only rejects what
+ * {@link JwtUtil#verify(String)} would certainly reject; anything it cannot decide is {@link Result#PLAUSIBLE}
+ * and goes through full verification. A plausible result proves nothing about the token.
+ */
+public final class TokenPrecheck {
+
+    public enum Result { PLAUSIBLE, MALFORMED, EXPIRED }
+
+    /** Base64url length of an HMAC-SHA256 signature (32 bytes). */
+    public static final int HS256_SIGNATURE_LENGTH = 43;
+    /** Base64url length of an ES256 signature (R || S, 64 bytes). */
+    public static final int ES256_SIGNATURE_LENGTH = 86;
+
+    // Au-delà, ce n'est pas un token émis par ce service
+    static final int MAX_TOKEN_LENGTH = 8192;
+
+    // "eyJ" est l'encodage base64url de {" : tout en-tête ou payload JSON compact commence ainsi
+    private static final String JSON_OBJECT_PREFIX = "eyJ";
+    private static final byte[] EXP_KEY = {'"', 'e', 'x', 'p', '"'};
+
+    private static final byte[] BASE64URL = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private TokenPrecheck() {
+    }
+
+    /**
+     * @param now             current time, epoch milliseconds
+     * @param signatureLength expected length of the third segment, e.g. {@link #HS256_SIGNATURE_LENGTH}
+     */
+    public static Result check(String token, long now, int signatureLength) {
+        if (token == null || token.length() > MAX_TOKEN_LENGTH) {
+            return Result.MALFORMED;
+        }
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+        if (headerEnd <= 0 || payloadEnd < 0
+                || token.length() - payloadEnd - 1 != signatureLength
+                || !token.startsWith(JSON_OBJECT_PREFIX)
+                || !token.startsWith(JSON_OBJECT_PREFIX, headerEnd + 1)) {
+            return Result.MALFORMED;
+        }
+        if (!isBase64Url(token, 0, headerEnd) || !isBase64Url(token, payloadEnd + 1, token.length())) {
+            return Result.MALFORMED;
+        }
+
+        byte[] payload = decode(token, headerEnd + 1, payloadEnd);
+        if (payload == null) {
+            return Result.MALFORMED;
+        }
+        long exp = expSeconds(payload);
+        if (exp >= 0 && now > exp * 1000L) {
+            return Result.EXPIRED;
+        }
+        return Result.PLAUSIBLE;
+    }
+
+    private static boolean isBase64Url(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= 128 || BASE64URL[c] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes unpadded base64url, or returns {@code null} on an invalid character or length.
+     */
+    private static byte[] decode(String s, int from, int to) {
+        int length = to - from;
+        if (length % 4 == 1) {
+            return null;
+        }
+        byte[] out = new byte[length * 3 / 4];
+        int o = 0;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            int value = c < 128 ? BASE64URL[c] : -1;
+            if (value < 0) {
+                return null;
+            }
+            buffer = (buffer << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out[o++] = (byte) (buffer >> bits);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Value of the top-level {@code "exp":<digits>} member, or -1 if there is none or it is not a plain
+     * integer. Strings (with their escapes) are skipped and nesting is tracked, so neither an {@code "exp"}
+     * inside a string value nor one in a nested object or array is taken for the claim.
+     */
+    private static long expSeconds(byte[] json) {
+        int depth = 0;
+        for (int i = 0; i < json.length; i++) {
+            switch (json[i]) {
+                case '{', '[' -> depth++;
+                case '}', ']' -> depth--;
+                case '"' -> {
+                    // Une clé de premier niveau suit '{' ou ',' au niveau 1
+                    if (depth == 1 && (json[i - 1] == '{' || json[i - 1] == ',') && isExpKey(json, i)) {
+                        return integerAt(json, i + EXP_KEY.length);
+                    }
+                    i = endOfString(json, i);
+                }
+                default -> { }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isExpKey(byte[] json, int at) {
+        if (at + EXP_KEY.length > json.length) {
+            return false;
+        }
+        for (int k = 0; k < EXP_KEY.length; k++) {
+            if (json[at + k] != EXP_KEY[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Index du guillemet fermant de la chaîne ouverte en start (ou la fin du tableau si elle n'est pas fermée)
+    private static int endOfString(byte[] json, int start) {
+        for (int i = start + 1; i < json.length; i++) {
+            if (json[i] == '\\') {
+                i++;
+            } else if (json[i] == '"') {
+                return i;
+            }
+        }
+        return json.length;
+    }
+
+    // Entier après le ':' qui suit la clé, terminé par ',' ou '}' ; -1 sinon
+    private static long integerAt(byte[] json, int p) {
+        if (p >= json.length || json[p] != ':') {
+            return -1;
+        }
+        long value = 0;
+        int digits = 0;
+        for (p++; p < json.length && json[p] >= '0' && json[p] <= '9'; p++) {
+            if (++digits > 12) {
+                return -1;
+            }
+            value = value * 10 + (json[p] - '0');
+        }
+        boolean endsHere = p < json.length && (json[p] == ',' || json[p] == '}');
+        return digits > 0 && endsHere ? value : -1;
+    }
+}
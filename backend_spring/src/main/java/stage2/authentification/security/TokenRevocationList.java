@@ -0,0 +1,107 @@
+package stage2.authentification.security;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import stage2.authentification.entity.RevokedToken;
+import stage2.authentification.repository.RevokedTokenRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ids ({@code jti}) of tokens revoked before their expiry, checked on every authenticated request.
+ * <p>
+ * The exact set maps each revoked id to its token's expiry and is the only source of truth. A
+ * {@link BloomFilter} in front of it answers the common case (token not revoked) with a few bit probes,
+ * without touching the map or the database. Revocations are written to {@code revoked_tokens} before
+ * they take effect, so they survive a restart. The periodic refresh drops expired entries, picks up the
+ * revocations of other instances and rebuilds the filter, which cannot forget keys on its own.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final RevokedTokenRepository repository;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    // jti -> exp (ms epoch)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    private final LongAdder revokedHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public TokenRevocationList(RevokedTokenRepository repository,
+                               @Value("${security.jwt.revocation.expected-entries:100000}") int expectedEntries,
+                               @Value("${security.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.repository = repository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    @PostConstruct
+    void load() {
+        refresh();
+    }
+
+    /**
+     * @param jti id of a token whose signature and expiry were already checked; {@code null} for tokens
+     *            issued before ids were added, which cannot be revoked one by one
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        if (revoked.containsKey(jti)) {
+            revokedHits.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Revokes one token until its expiry. Already expired tokens are ignored.
+     */
+    public void revoke(String jti, String subject, long expiresAt) {
+        long now = System.currentTimeMillis();
+        if (jti == null || expiresAt <= now) {
+            return;
+        }
+        // Écrit en base d'abord : une révocation acceptée ne peut pas être perdue au redémarrage
+        repository.save(new RevokedToken(jti, subject, expiresAt, now));
+        revoked.put(jti, expiresAt);
+        filter.add(jti);
+    }
+
+    /**
+     * Purges expired revocations (memory and database), merges those recorded by other instances and
+     * rebuilds the filter from the remaining ids.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.refresh-interval:30000}",
+               initialDelayString = "${security.jwt.revocation.refresh-interval:30000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        repository.deleteExpired(now);
+        for (RevokedToken token : repository.findActive(now)) {
+            revoked.putIfAbsent(token.getJti(), token.getExpiresAt());
+        }
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+        // Un revoke() concurrent a pu ajouter son id à l'ancien filtre : il est déjà dans la map, on le reprend
+        revoked.keySet().forEach(rebuilt::add);
+    }
+
+    public int size() { return revoked.size(); }
+    public long getRevokedHitCount() { return revokedHits.sum(); }
+    public long getFalsePositiveCount() { return falsePositives.sum(); }
+}
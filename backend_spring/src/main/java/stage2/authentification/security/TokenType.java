@@ -0,0 +1,28 @@
+package stage2.authentification.security;
+
+/**
+ * Kind of JWT minted by {@link JwtUtil}, carried in the {@code type} claim.
+ */
+public enum TokenType {
+    ACCESS("access"),
+    REFRESH("refresh");
+
+    private final String claimValue;
+
+    TokenType(String claimValue) {
+        this.claimValue = claimValue;
+    }
+
+    public String getClaimValue() {
+        return claimValue;
+    }
+
+    public static TokenType fromClaim(String value) {
+        for (TokenType type : values()) {
+            if (type.claimValue.equals(value)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
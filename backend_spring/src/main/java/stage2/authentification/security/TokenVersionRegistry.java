@@ -0,0 +1,68 @@
+package stage2.authentification.security;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import stage2.authentification.entity.User;
+import stage2.authentification.repository.UserRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of {@code users.token_version} for the users whose tokens have been revoked.
+ * Tokens carry the version they were minted with; a token older than the current version is rejected
+ * without touching the database. Users that were never revoked are absent and implicitly at version 0.
+ * Keys are normalized emails ({@link User#normalizeEmail(String)}), like the {@code users.email_normalized} column.
+ * The map is reloaded periodically so that revocations made by other instances are picked up.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<String, Integer> versions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        refresh();
+    }
+
+    /**
+     * Merges the versions stored in the database, including those bumped by other instances.
+     * A version never goes down: a concurrent {@link #revokeAll(String)} on this instance is kept.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.token-versions.refresh-interval:30000}",
+               initialDelayString = "${security.jwt.token-versions.refresh-interval:30000}")
+    public void refresh() {
+        for (Object[] row : userRepository.findRevokedTokenVersions()) {
+            versions.merge((String) row[0], (Integer) row[1], Math::max);
+        }
+    }
+
+    public int currentVersion(String email) {
+        // Cas courant (aucune révocation) : ni normalisation ni recherche
+        if (versions.isEmpty() || email == null) {
+            return 0;
+        }
+        return versions.getOrDefault(User.normalizeEmail(email), 0);
+    }
+
+    public boolean isCurrent(String email, int tokenVersion) {
+        return tokenVersion >= currentVersion(email);
+    }
+
+    /**
+     * Invalidates every token issued so far to the given user.
+     */
+    public void revokeAll(String email) {
+        if (userRepository.incrementTokenVersion(email) > 0) {
+            userRepository.findTokenVersionByEmail(email)
+                .ifPresent(version -> versions.merge(User.normalizeEmail(email), version, Math::max));
+        }
+    }
+}
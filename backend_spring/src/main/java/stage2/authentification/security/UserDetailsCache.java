@@ -0,0 +1,155 @@
+package stage2.authentification.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import stage2.authentification.entity.User;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded, TTL-expiring cache in front of {@link UserDetailsServiceImpl}, keyed by normalized email.
+ * <p>
+ * Reads are a single {@link ConcurrentHashMap#get}. Concurrent misses for the same email share one
+ * in-flight load, so a burst of logins for one account issues a single query. When the cache grows past
+ * {@code maxSize}, expired entries are dropped first and then arbitrary entries until it is back under
+ * the bound. Failed loads (unknown email) are not cached.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UserDetailsCache(@Value("${security.user-cache.max-size:10000}") int maxSize,
+                            @Value("${security.user-cache.ttl:5m}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        if (maxSize <= 0) {
+            misses.increment();
+            return loader.apply(email);
+        }
+
+        // Même clé quelle que soit la casse saisie, comme users.email_normalized
+        String key = User.normalizeEmail(email);
+        long now = System.nanoTime();
+        Entry current = entries.get(key);
+        while (current == null || current.isExpired(now)) {
+            Entry fresh = new Entry(now + ttlNanos);
+            boolean installed = current == null
+                    ? entries.putIfAbsent(key, fresh) == null
+                    : entries.replace(key, current, fresh);
+            if (installed) {
+                if (current != null) {
+                    evictions.increment();
+                }
+                misses.increment();
+                return load(key, fresh, loader);
+            }
+            current = entries.get(key);
+        }
+
+        hits.increment();
+        return await(current.value);
+    }
+
+    /**
+     * Drops the cached entry for this email; must be called whenever the corresponding user row changes.
+     */
+    public void invalidate(String email) {
+        if (email != null) {
+            entries.remove(User.normalizeEmail(email));
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    public int size() { return entries.size(); }
+    public int getMaxSize() { return maxSize; }
+
+    private UserDetails load(String email, Entry entry, Function<String, UserDetails> loader) {
+        try {
+            UserDetails userDetails = loader.apply(email);
+            entry.value.complete(userDetails);
+            evictIfNeeded();
+            return userDetails;
+        } catch (RuntimeException e) {
+            entries.remove(email, entry);
+            entry.value.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static UserDetails await(CompletableFuture<UserDetails> value) {
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() <= maxSize || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // On redescend à ~90 % de la borne pour ne pas balayer à chaque insertion
+            int target = maxSize - Math.max(1, maxSize / 10);
+            long now = System.nanoTime();
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+                if (it.next().isExpired(now)) {
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext() && entries.size() > target; ) {
+                Entry entry = it.next();
+                if (entry.value.isDone()) {
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class Entry {
+        final CompletableFuture<UserDetails> value = new CompletableFuture<>();
+        final long expiresAt;
+
+        Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return value.isDone() && now - expiresAt >= 0;
+        }
+    }
+}
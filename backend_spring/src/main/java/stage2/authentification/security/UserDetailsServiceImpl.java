@@ -5,28 +5,77 @@ package stage2.authentification.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 import stage2.authentification.entity.User;
+import stage2.authentification.jfr.AuthPhaseEvent;
+import stage2.authentification.metrics.AuthMetrics;
 import stage2.authentification.repository.UserRepository;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private AuthMetrics authMetrics;
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-            .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        // Phase "lookup" : cache compris, pour voir aussi les requêtes servies sans accès à la base
+        AuthPhaseEvent event = AuthPhaseEvent.start(AuthPhaseEvent.LOOKUP);
+        try {
+            UserDetails user = userDetailsCache.get(email, this::loadFromDatabase);
+            event.end("found");
+            return user;
+        } catch (UsernameNotFoundException e) {
+            event.end("not_found");
+            throw e;
+        }
+    }
 
-        return org.springframework.security.core.userdetails.User.builder()
-            .username(user.getEmail())
-            .password(user.getPassword())
-            
+    /**
+     * Called by the authentication provider after a successful login when the stored hash uses another
+     * BCrypt cost than the current one: stores the rehashed password without revoking existing tokens.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        userDetailsCache.invalidate(user.getUsername());
+        if (user instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.withPassword(newPassword);
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+            .password(newPassword)
             .build();
     }
+
+    private UserDetails loadFromDatabase(String email) {
+        long start = System.nanoTime();
+        Optional<User> found = userRepository.findByEmail(email);
+        authMetrics.recordUserLookup(found.isPresent(), System.nanoTime() - start);
+        User user = found
+            .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+
+        return AuthenticatedUser.from(user);
+    }
+
+    /**
+     * Maps the {@code users.role} column to the authority carried by the access token's {@code role} claim.
+     */
+    static String roleAuthority(String role) {
+        if (role == null || role.isBlank()) {
+            return "ROLE_USER";
+        }
+        return role.startsWith("ROLE_") ? role : "ROLE_" + role;
+    }
 }
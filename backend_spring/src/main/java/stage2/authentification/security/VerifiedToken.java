@@ -0,0 +1,40 @@
+package stage2.authentification.security;
+
+/**
+ * Immutable view of a JWT whose signature and expiry have already been checked
+ * by {@link JwtUtil#verify(String)}. Timestamps are kept as epoch milliseconds.
+ */
+public final class VerifiedToken {
+    private final String subject;
+    private final String role;
+    private final long issuedAt;
+    private final long expiresAt;
+    private final TokenType type;
+    private final int tokenVersion;
+    private final String id;
+
+    public VerifiedToken(String subject, String role, long issuedAt, long expiresAt, TokenType type, int tokenVersion,
+                         String id) {
+        this.subject = subject;
+        this.role = role;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.type = type;
+        this.tokenVersion = tokenVersion;
+        this.id = id;
+    }
+
+    // Getters
+    public String getSubject() { return subject; }
+    public String getRole() { return role; }
+    public long getIssuedAt() { return issuedAt; }
+    public long getExpiresAt() { return expiresAt; }
+    public TokenType getType() { return type; }
+    public int getTokenVersion() { return tokenVersion; }
+    // Claim jti ; null pour les tokens émis avant son ajout
+    public String getId() { return id; }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAt <= nowMillis;
+    }
+}
@@ -0,0 +1,248 @@
+package stage2.authentification.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Optional cache of tokens that already passed {@link JwtUtil#check(String)}, so a token replayed on many
+ * requests is only signature-checked and parsed once. Rejected tokens are never cached.
+ * <p>
+ * Entries are keyed by the first 128 bits of the SHA-256 of the compact token and live in a fixed-size,
+ * two-way set-associative table made of parallel arrays: one {@code long[]} holds, per slot, a stamp, the
+ * two digest words and the token's expiry (32 bytes, so a set is a single contiguous 64-byte run), and a
+ * {@link TokenCheck}{@code []} holds the verified claims. Probing a set only reads the {@code long[]}; the
+ * claims are kept by reference rather than unpacked into more primitive columns because a hit has to hand
+ * them back, and rebuilding them would allocate on every hit. No per-slot wrapper object is allocated.
+ * <p>
+ * Each slot is guarded by its stamp as a seqlock: a writer makes it odd while it rewrites the slot, and a
+ * reader that finds it odd, or changed by the time it has read the slot, treats the slot as a miss. A digest
+ * is therefore never paired with another token's claims. An entry is dropped once the token's own
+ * {@code exp} has passed.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // Disposition d'un slot dans table : stamp, digest (2 mots), expiration (epoch ms, 0 = vide)
+    private static final int STRIDE = 4;
+    private static final int STAMP = 0;
+    private static final int HI = 1;
+    private static final int LO = 2;
+    private static final int EXPIRES_AT = 3;
+
+    private final boolean enabled;
+    private final long[] table;
+    private final TokenCheck[] checks;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    public VerifiedTokenCache(@Value("${security.jwt.verified-cache.enabled:false}") boolean enabled,
+                              @Value("${security.jwt.verified-cache.capacity:65536}") int capacity) {
+        this.enabled = enabled;
+        int size = enabled ? Integer.highestOneBit(Math.max(2, capacity - 1)) << 1 : 2;
+        this.table = new long[size * STRIDE];
+        this.checks = new TokenCheck[size];
+        this.mask = size - 1;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the result for this exact token from the cache, or checks it with {@code checker} and caches
+     * the result if the token is valid.
+     */
+    public TokenCheck getOrCheck(String token, Function<String, TokenCheck> checker) {
+        if (!enabled) {
+            return checker.apply(token);
+        }
+        byte[] digest = digest(token);
+        long hi = word(digest, 0);
+        long lo = word(digest, 8);
+        int first = (int) lo & mask & ~1;
+        long now = System.currentTimeMillis();
+
+        TokenCheck cached = read(first, hi, lo, now);
+        if (cached == null) {
+            cached = read(first + 1, hi, lo, now);
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        TokenCheck checked = checker.apply(token);
+        if (!checked.isValid()) {
+            return checked;
+        }
+
+        // On remplace un slot vide ou expiré, sinon celui qui expire le plus tôt (lecture indicative, sans stamp)
+        long expiresA = table[first * STRIDE + EXPIRES_AT];
+        long expiresB = table[(first + 1) * STRIDE + EXPIRES_AT];
+        int victim;
+        if (expiresA <= now) {
+            victim = first;
+        } else if (expiresB <= now) {
+            victim = first + 1;
+        } else {
+            victim = expiresA <= expiresB ? first : first + 1;
+        }
+        int base = victim * STRIDE;
+        long stamp = lock(base);
+        // Slot déjà en cours d'écriture : ce token sera simplement revérifié à sa prochaine présentation
+        if (stamp >= 0) {
+            table[base + HI] = hi;
+            table[base + LO] = lo;
+            table[base + EXPIRES_AT] = checked.getToken().getExpiresAt();
+            checks[victim] = checked;
+            unlock(base, stamp);
+        }
+        return checked;
+    }
+
+    private TokenCheck read(int slot, long hi, long lo, long now) {
+        int base = slot * STRIDE;
+        long stamp = (long) LONGS.getAcquire(table, base + STAMP);
+        if ((stamp & 1) != 0) {
+            return null;
+        }
+        boolean matches = table[base + HI] == hi && table[base + LO] == lo && table[base + EXPIRES_AT] > now;
+        TokenCheck check = checks[slot];
+        // Les lectures ci-dessus ne passent pas après la relecture du stamp : slot modifié entre-temps = absent
+        VarHandle.acquireFence();
+        if (!matches || (long) LONGS.getVolatile(table, base + STAMP) != stamp) {
+            return null;
+        }
+        return check;
+    }
+
+    /**
+     * Removes a single token, e.g. after it has been revoked.
+     */
+    public void invalidate(String token) {
+        if (!enabled) {
+            return;
+        }
+        byte[] digest = digest(token);
+        long hi = word(digest, 0);
+        long lo = word(digest, 8);
+        int first = (int) lo & mask & ~1;
+        for (int slot = first; slot <= first + 1; slot++) {
+            int base = slot * STRIDE;
+            long stamp = lockWait(base);
+            if (table[base + HI] == hi && table[base + LO] == lo) {
+                clear(slot);
+            }
+            unlock(base, stamp);
+        }
+    }
+
+    /**
+     * Removes every cached token of a user (full scan, only used on revocation).
+     */
+    public void invalidateSubject(String subject) {
+        if (!enabled || subject == null) {
+            return;
+        }
+        for (int slot = 0; slot < checks.length; slot++) {
+            int base = slot * STRIDE;
+            if (checks[slot] == null) {
+                continue;
+            }
+            long stamp = lockWait(base);
+            TokenCheck check = checks[slot];
+            if (check != null && subject.equals(check.getToken().getSubject())) {
+                clear(slot);
+            }
+            unlock(base, stamp);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.verified-cache.purge-interval:60000}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (int slot = 0; slot < checks.length; slot++) {
+            int base = slot * STRIDE;
+            if (checks[slot] == null || table[base + EXPIRES_AT] > now) {
+                continue;
+            }
+            long stamp = lockWait(base);
+            if (table[base + EXPIRES_AT] <= now) {
+                clear(slot);
+            }
+            unlock(base, stamp);
+        }
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public int getCapacity() { return enabled ? checks.length : 0; }
+
+    // Appelé slot verrouillé ; expiration 0 : le slot ne correspond plus à aucun token
+    private void clear(int slot) {
+        int base = slot * STRIDE;
+        table[base + HI] = 0;
+        table[base + LO] = 0;
+        table[base + EXPIRES_AT] = 0;
+        checks[slot] = null;
+    }
+
+    /**
+     * Makes the slot's stamp odd, or returns -1 if another writer holds it.
+     */
+    private long lock(int base) {
+        long stamp = (long) LONGS.getVolatile(table, base + STAMP);
+        if ((stamp & 1) != 0 || !LONGS.compareAndSet(table, base + STAMP, stamp, stamp + 1)) {
+            return -1;
+        }
+        return stamp;
+    }
+
+    // Invalidation : ne doit pas être sautée, on attend la fin de l'écriture concurrente (quelques stores)
+    private long lockWait(int base) {
+        long stamp;
+        while ((stamp = lock(base)) < 0) {
+            Thread.onSpinWait();
+        }
+        return stamp;
+    }
+
+    private void unlock(int base, long stamp) {
+        LONGS.setRelease(table, base + STAMP, stamp + 2);
+    }
+
+    private static byte[] digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        return sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long word(byte[] digest, int offset) {
+        return ByteBuffer.wrap(digest, offset, 8).getLong();
+    }
+}
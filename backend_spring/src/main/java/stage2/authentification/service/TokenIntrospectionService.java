@@ -0,0 +1,199 @@
+package stage2.authentification.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import stage2.authentification.dto.TokenIntrospection;
+import stage2.authentification.security.JwtUtil;
+import stage2.authentification.security.TokenCheck;
+import stage2.authentification.security.TokenRevocationList;
+import stage2.authentification.security.TokenType;
+import stage2.authentification.security.TokenVersionRegistry;
+import stage2.authentification.security.VerifiedToken;
+import stage2.authentification.security.VerifiedTokenCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Introspection de tokens par lots (RFC 7662, un objet par token).
+ * <p>
+ * Le corps (tableau JSON ou NDJSON de tokens) est lu au fil de l'eau par blocs de {@code chunk-size}. Chaque
+ * bloc est vérifié en parallèle sur un pool dédié, découpé en autant de tranches que le pool a de threads, puis
+ * écrit en NDJSON dans l'ordre d'entrée et envoyé : la réponse commence avant la fin de la lecture et la mémoire
+ * reste bornée à un bloc. Un token est actif s'il passe les mêmes contrôles que dans
+ * {@link stage2.authentification.security.JwtAuthenticationFilter} : signature et expiration (via le cache des
+ * tokens vérifiés), type access, version de token courante, absence de la liste de révocation.
+ */
+@Service
+public class TokenIntrospectionService {
+
+    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TokenRevocationList tokenRevocationList;
+    private final ObjectMapper objectMapper;
+
+    private final ExecutorService executor;
+    private final int threads;
+    private final int chunkSize;
+    private final int maxBatchSize;
+    private final Semaphore batches;
+
+    private final LongAdder active = new LongAdder();
+    private final LongAdder inactive = new LongAdder();
+    private final LongAdder rejectedBatches = new LongAdder();
+
+    public TokenIntrospectionService(JwtUtil jwtUtil, VerifiedTokenCache verifiedTokenCache,
+                                     TokenVersionRegistry tokenVersionRegistry, TokenRevocationList tokenRevocationList,
+                                     ObjectMapper objectMapper,
+                                     @Value("${security.introspection.threads:0}") int threads,
+                                     @Value("${security.introspection.chunk-size:256}") int chunkSize,
+                                     @Value("${security.introspection.max-batch-size:10000}") int maxBatchSize,
+                                     @Value("${security.introspection.max-concurrent-batches:4}") int maxConcurrentBatches) {
+        this.jwtUtil = jwtUtil;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.tokenRevocationList = tokenRevocationList;
+        this.objectMapper = objectMapper;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // Vérifications de signature : calcul pur, threads de plateforme même avec les threads virtuels
+        this.executor = Executors.newFixedThreadPool(this.threads,
+                Thread.ofPlatform().name("introspect-", 1).daemon(true).factory());
+        this.chunkSize = chunkSize;
+        this.maxBatchSize = maxBatchSize;
+        this.batches = new Semaphore(maxConcurrentBatches);
+    }
+
+    /**
+     * Réserve une place pour un lot ; à libérer par {@link #introspect(InputStream, OutputStream)}.
+     *
+     * @return {@code false} si {@code max-concurrent-batches} lots sont déjà en cours
+     */
+    public boolean tryStartBatch() {
+        if (batches.tryAcquire()) {
+            return true;
+        }
+        rejectedBatches.increment();
+        return false;
+    }
+
+    /**
+     * Lit les tokens de {@code body} et écrit un objet {@link TokenIntrospection} par ligne. Un corps invalide ou
+     * trop long termine la réponse par une ligne {@code {"error": ...}} : le statut HTTP est déjà parti.
+     * Libère la place réservée par {@link #tryStartBatch()}.
+     */
+    public void introspect(InputStream body, OutputStream out) throws IOException {
+        try (MappingIterator<String> tokens = objectMapper.readerFor(String.class).readValues(body)) {
+            List<String> chunk = new ArrayList<>(chunkSize);
+            int index = 0;
+            while (tokens.hasNextValue()) {
+                if (index == maxBatchSize) {
+                    writeChunk(chunk, index - chunk.size(), out);
+                    writeError(out, "Lot limité à " + maxBatchSize + " tokens");
+                    return;
+                }
+                chunk.add(tokens.nextValue());
+                index++;
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, index - chunk.size(), out);
+                    chunk.clear();
+                }
+            }
+            writeChunk(chunk, index - chunk.size(), out);
+        } catch (JsonProcessingException e) {
+            writeError(out, "JSON invalide: " + e.getOriginalMessage());
+        } finally {
+            batches.release();
+        }
+    }
+
+    private void writeChunk(List<String> chunk, int firstIndex, OutputStream out) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        for (TokenIntrospection result : introspectAll(chunk, firstIndex)) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private void writeError(OutputStream out, String message) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(Map.of("error", message)));
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Vérifie les tokens en parallèle ; les résultats gardent l'ordre d'entrée, indexés à partir de
+     * {@code firstIndex}.
+     */
+    List<TokenIntrospection> introspectAll(List<String> tokens, int firstIndex) {
+        TokenIntrospection[] results = new TokenIntrospection[tokens.size()];
+        int slices = Math.min(threads, (tokens.size() + 15) / 16);
+        if (slices <= 1) {
+            // Petit lot ou un seul cœur : pas de passage par le pool
+            introspectRange(tokens, firstIndex, results, 0, tokens.size());
+            return List.of(results);
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[slices];
+        for (int slice = 0; slice < slices; slice++) {
+            int from = (int) ((long) tokens.size() * slice / slices);
+            int to = (int) ((long) tokens.size() * (slice + 1) / slices);
+            futures[slice] = CompletableFuture.runAsync(
+                    () -> introspectRange(tokens, firstIndex, results, from, to), executor);
+        }
+        CompletableFuture.allOf(futures).join();
+        return List.of(results);
+    }
+
+    private void introspectRange(List<String> tokens, int firstIndex, TokenIntrospection[] results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            results[i] = introspect(tokens.get(i), firstIndex + i);
+        }
+    }
+
+    /**
+     * Même décision que le filtre JWT pour une requête portant ce token.
+     */
+    TokenIntrospection introspect(String token, int index) {
+        TokenCheck check = token != null ? verifiedTokenCache.getOrCheck(token, jwtUtil::check) : TokenCheck.MALFORMED;
+        VerifiedToken verified = check.getToken();
+        if (!check.isValid()
+                || verified.getType() != TokenType.ACCESS
+                || !tokenVersionRegistry.isCurrent(verified.getSubject(), verified.getTokenVersion())
+                || tokenRevocationList.isRevoked(verified.getId())) {
+            inactive.increment();
+            return TokenIntrospection.inactive(index);
+        }
+        active.increment();
+        return new TokenIntrospection(index, true, verified.getSubject(), verified.getRole(),
+                verified.getType().getClaimValue(), verified.getIssuedAt() / 1000, verified.getExpiresAt() / 1000,
+                verified.getId());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public long getActiveCount() { return active.sum(); }
+    public long getInactiveCount() { return inactive.sum(); }
+    public long getRejectedBatchCount() { return rejectedBatches.sum(); }
+}
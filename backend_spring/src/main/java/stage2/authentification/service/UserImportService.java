@@ -0,0 +1,263 @@
+package stage2.authentification.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import stage2.authentification.controller.UserController.CreateUserRequest;
+import stage2.authentification.dto.BulkImportResult;
+import stage2.authentification.dto.BulkImportRow;
+import stage2.authentification.dto.BulkImportRow.Status;
+import stage2.authentification.entity.User;
+import stage2.authentification.repository.UserRepository;
+import stage2.authentification.security.OffloadingPasswordEncoder;
+import stage2.authentification.security.PasswordHashingBusyException;
+import stage2.authentification.security.PasswordHashingExecutor;
+import stage2.authentification.security.UserDetailsCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Création d'utilisateurs en masse.
+ * <p>
+ * Le corps de la requête est lu au fil de l'eau (tableau JSON ou NDJSON) par blocs de {@code batch-size}
+ * lignes. Les mots de passe d'un bloc sont hachés en parallèle sur le pool BCrypt, avec au plus autant de
+ * hachages en attente que le pool a de threads pour laisser de la place aux connexions interactives. Chaque
+ * bloc est ensuite inséré dans une seule transaction, en batchs JDBC.
+ * <p>
+ * Les blocs déjà insérés restent validés si l'import s'arrête en route (JSON illisible, pool BCrypt saturé
+ * plus de {@code busy-timeout}) : le résultat rapporte alors toutes les lignes traitées et la raison de l'arrêt.
+ */
+@Service
+public class UserImportService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OffloadingPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${users.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${users.import.busy-timeout:30s}")
+    private Duration busyTimeout;
+
+    // Rôles attribuables à l'import (les autres valeurs rendent la ligne invalide)
+    private static final Set<String> ROLES = Set.of("USER", "ADMIN", "DOCTOR");
+
+    private static final long MIN_BACKOFF_MILLIS = 10;
+    private static final long MAX_BACKOFF_MILLIS = 500;
+
+    public BulkImportResult importUsers(InputStream body) throws IOException {
+        List<BulkImportRow> results = new ArrayList<>();
+        List<PendingUser> chunk = new ArrayList<>(batchSize);
+        Deque<CompletableFuture<String>> inFlight = new ArrayDeque<>();
+        String error = null;
+        int retryAfterSeconds = 0;
+
+        try (MappingIterator<CreateUserRequest> requests =
+                     objectMapper.readerFor(CreateUserRequest.class).readValues(body)) {
+            int index = 0;
+            while (requests.hasNextValue()) {
+                // Élément null ([null] ou ligne NDJSON "null") : ligne invalide, la lecture reprend après
+                boolean empty = requests.getParser().currentToken() == JsonToken.VALUE_NULL;
+                CreateUserRequest request;
+                try {
+                    request = requests.nextValue();
+                } catch (MismatchedInputException e) {
+                    if (!empty) {
+                        throw e;
+                    }
+                    request = null;
+                }
+                if (request == null) {
+                    results.add(new BulkImportRow(index++, null, Status.INVALID, null, "Ligne vide"));
+                    continue;
+                }
+                String problem = validate(request);
+                if (problem != null) {
+                    results.add(new BulkImportRow(index++, request.getEmail(), Status.INVALID, null, problem));
+                    continue;
+                }
+
+                chunk.add(new PendingUser(index++, request, hash(request.getPassword(), inFlight)));
+                if (chunk.size() == batchSize) {
+                    insertChunk(chunk, results);
+                    chunk.clear();
+                    inFlight.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            error = "JSON invalide: " + e.getOriginalMessage();
+        } catch (PasswordHashingBusyException e) {
+            error = e.getMessage();
+            retryAfterSeconds = e.getRetryAfterSeconds();
+        }
+        // Les lignes déjà hachées du bloc en cours sont insérées même après un arrêt
+        insertChunk(chunk, results);
+        results.sort(Comparator.comparingInt(BulkImportRow::getIndex));
+        return new BulkImportResult(results, error, retryAfterSeconds);
+    }
+
+    private CompletableFuture<String> hash(String rawPassword, Deque<CompletableFuture<String>> inFlight) {
+        long deadline = System.nanoTime() + busyTimeout.toNanos();
+        long backoffMillis = MIN_BACKOFF_MILLIS;
+        while (true) {
+            // Contre-pression : on attend le plus ancien hachage avant d'en soumettre un nouveau
+            while (inFlight.size() >= passwordHashingExecutor.getPoolSize()) {
+                inFlight.pollFirst().join();
+            }
+            try {
+                CompletableFuture<String> future = passwordEncoder.encodeAsync(rawPassword);
+                inFlight.addLast(future);
+                return future;
+            } catch (PasswordHashingBusyException e) {
+                if (!inFlight.isEmpty()) {
+                    inFlight.pollFirst().join();
+                    continue;
+                }
+                // File pleine de hachages interactifs : on patiente (attente croissante) au lieu d'abandonner
+                if (System.nanoTime() - deadline >= 0) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void insertChunk(List<PendingUser> chunk, List<BulkImportRow> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        // Doublons dans le bloc puis doublons déjà en base (une seule requête pour tout le bloc), à la casse près
+        Set<String> emails = new HashSet<>();
+        List<PendingUser> candidates = new ArrayList<>(chunk.size());
+        for (PendingUser pending : chunk) {
+            if (emails.add(User.normalizeEmail(pending.request.getEmail()))) {
+                candidates.add(pending);
+            } else {
+                results.add(duplicate(pending));
+            }
+        }
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(emails));
+
+        List<PendingUser> toInsert = new ArrayList<>(candidates.size());
+        for (PendingUser pending : candidates) {
+            if (existing.contains(User.normalizeEmail(pending.request.getEmail()))) {
+                results.add(duplicate(pending));
+            } else {
+                pending.user = pending.toUser();
+                toInsert.add(pending);
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.saveAll(toInsert.stream().map(pending -> pending.user).toList());
+                userRepository.flush();
+            });
+            for (PendingUser pending : toInsert) {
+                results.add(created(pending));
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (!UserService.isDuplicateEmail(e)) {
+                throw e;
+            }
+            // Un doublon est apparu entre la vérification et l'insertion : on repasse ligne par ligne
+            for (PendingUser pending : toInsert) {
+                pending.user = pending.toUser();
+                try {
+                    userRepository.saveAndFlush(pending.user);
+                    results.add(created(pending));
+                } catch (DataIntegrityViolationException rowError) {
+                    if (!UserService.isDuplicateEmail(rowError)) {
+                        throw rowError;
+                    }
+                    results.add(duplicate(pending));
+                }
+            }
+        }
+
+        for (PendingUser pending : toInsert) {
+            userDetailsCache.invalidate(pending.request.getEmail());
+        }
+    }
+
+    private static String validate(CreateUserRequest request) {
+        if (isBlank(request.getEmail())) return "Email manquant";
+        if (isBlank(request.getPassword())) return "Mot de passe manquant";
+        if (isBlank(request.getFirstName()) || isBlank(request.getLastName())) return "Nom ou prénom manquant";
+        if (!isBlank(request.getRole()) && !ROLES.contains(request.getRole())) return "Rôle inconnu";
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static BulkImportRow created(PendingUser pending) {
+        return new BulkImportRow(pending.index, pending.request.getEmail(), Status.CREATED, pending.user.getId(), null);
+    }
+
+    private static BulkImportRow duplicate(PendingUser pending) {
+        return new BulkImportRow(pending.index, pending.request.getEmail(), Status.DUPLICATE, null, "Email déjà utilisé");
+    }
+
+    private static final class PendingUser {
+        final int index;
+        final CreateUserRequest request;
+        final CompletableFuture<String> passwordHash;
+        User user;
+
+        PendingUser(int index, CreateUserRequest request, CompletableFuture<String> passwordHash) {
+            this.index = index;
+            this.request = request;
+            this.passwordHash = passwordHash;
+        }
+
+        User toUser() {
+            String role = isBlank(request.getRole()) ? "USER" : request.getRole();
+            return new User(request.getFirstName(), request.getLastName(), request.getEmail(),
+                    passwordHash.join(), role);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package stage2.authentification.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -9,24 +13,50 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import stage2.authentification.activity.LoginActivityWriter;
+import stage2.authentification.audit.AuditLog;
 import stage2.authentification.controller.UserController.CreateUserRequest;
 import stage2.authentification.controller.UserController.LoginRequest;
 import stage2.authentification.controller.UserController.SignupRequest;
 import stage2.authentification.dto.AuthResponse;
 import stage2.authentification.dto.UserDto;
+import stage2.authentification.dto.UserPage;
 import stage2.authentification.dto.UserResponse;
 import stage2.authentification.entity.User;
+import stage2.authentification.jfr.AuthOperationEvent;
 import stage2.authentification.repository.UserRepository;
+import stage2.authentification.security.AuthenticatedUser;
 import stage2.authentification.security.JwtUtil;
-
+import stage2.authentification.security.PasswordHashingBusyException;
+import stage2.authentification.security.RefreshTokenStore;
+import stage2.authentification.security.TokenCheck;
+import stage2.authentification.security.TokenRevocationList;
+import stage2.authentification.security.TokenType;
+import stage2.authentification.security.TokenVersionRegistry;
+import stage2.authentification.security.UserDetailsCache;
+import stage2.authentification.security.VerifiedTokenCache;
+import stage2.authentification.security.VerifiedToken;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
 
     private static final int TOKEN_EXPIRATION = 900;
 
+    private static final String UNIQUE_VIOLATION_SQL_STATE = "23505";
+
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int EXPORT_FLUSH_EVERY = 500;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -42,12 +72,65 @@ public class UserService {
     @Autowired
     private UserDetailsService userDetailsService;
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private RefreshTokenStore refreshTokenStore;
+
+    @Autowired
+    private LoginActivityWriter loginActivityWriter;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Page d'utilisateurs d'id strictement supérieur à {@code afterId}, triés par id, éventuellement limitée
+     * à un rôle.
+     */
+    public UserPage getUsersPage(long afterId, int limit, String role) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<UserDto> users = role == null || role.isBlank()
+                ? userRepository.findPageAfter(afterId, Limit.of(size))
+                : userRepository.findPageAfterByRole(role, afterId, Limit.of(size));
+        Long nextCursor = users.size() == size ? users.get(users.size() - 1).getId() : null;
+        return new UserPage(users, nextCursor);
+    }
+
+    /**
+     * Écrit tous les utilisateurs en NDJSON (un objet JSON par ligne) au fil de la lecture du curseur,
+     * sans jamais matérialiser la liste complète en mémoire.
+     */
+    @Transactional(readOnly = true)
+    public void exportUsers(OutputStream out) throws IOException {
+        try (Stream<UserDto> users = userRepository.streamAllUsers()) {
+            Iterator<UserDto> it = users.iterator();
+            int written = 0;
+            while (it.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(it.next()));
+                out.write('\n');
+                if (++written % EXPORT_FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        }
     }
 
     public boolean existsByEmail(String email) {
-        return userRepository.findByEmail(email).isPresent();
+        return userRepository.existsByEmail(email);
     }
 
     public User findByEmail(String email) {
@@ -55,6 +138,124 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("Utilisateur introuvable avec l'email : " + email));
     }
 
+    /**
+     * Vérifie un token d'accès comme le filtre JWT : signature et expiration (via le cache des tokens
+     * vérifiés), type, version des tokens de l'utilisateur et liste de révocation.
+     *
+     * @throws BadCredentialsException si le token est refusé
+     */
+    public VerifiedToken requireAccessToken(String accessToken) {
+        TokenCheck check = verifiedTokenCache.getOrCheck(accessToken, jwtUtil::check);
+        VerifiedToken verified = check.getToken();
+        if (!check.isValid() || verified.getType() != TokenType.ACCESS
+                || !tokenVersionRegistry.isCurrent(verified.getSubject(), verified.getTokenVersion())
+                || tokenRevocationList.isRevoked(verified.getId())) {
+            throw new BadCredentialsException("Invalid or expired token");
+        }
+        return verified;
+    }
+
+    /**
+     * Invalide tous les tokens (accès et rafraîchissement) déjà émis pour cet utilisateur.
+     * Appelé par la déconnexion de toutes les sessions et par le changement de mot de passe.
+     */
+    public void revokeTokens(String email) {
+        tokenVersionRegistry.revokeAll(email);
+        userDetailsCache.invalidate(email);
+        verifiedTokenCache.invalidateSubject(email);
+    }
+
+    /**
+     * Déconnexion de toutes les sessions de l'appelant : ses tokens d'accès et de rafraîchissement déjà émis,
+     * sur tous les appareils, sont refusés.
+     *
+     * @throws BadCredentialsException si le token d'accès est refusé
+     */
+    public void logoutAll(String accessToken) {
+        VerifiedToken caller = requireAccessToken(accessToken);
+        revokeTokens(caller.getSubject());
+        auditLog.record(AuditLog.Event.LOGOUT_ALL, AuditLog.Outcome.SUCCESS, AuditLog.UNKNOWN_USER,
+                caller.getSubject(), caller.getSubject());
+    }
+
+    /**
+     * Change le mot de passe de l'appelant après vérification du mot de passe actuel, puis révoque tous
+     * ses tokens : chaque session, celle-ci comprise, doit se reconnecter.
+     *
+     * @throws BadCredentialsException si le token d'accès est refusé ou si le mot de passe actuel est faux
+     */
+    public void changePassword(String accessToken, String currentPassword, String newPassword) {
+        VerifiedToken caller = requireAccessToken(accessToken);
+        if (newPassword == null || newPassword.isBlank()) {
+            throw new IllegalArgumentException("Nouveau mot de passe manquant");
+        }
+        User user = userRepository.findByEmail(caller.getSubject())
+                .orElseThrow(() -> new BadCredentialsException("Invalid or expired token"));
+        if (currentPassword == null || !passwordEncoder.matches(currentPassword, user.getPassword())) {
+            auditLog.record(AuditLog.Event.PASSWORD_CHANGE, AuditLog.Outcome.BAD_CREDENTIALS, user.getId(),
+                    user.getEmail(), caller.getSubject());
+            throw new BadCredentialsException("Mot de passe actuel incorrect");
+        }
+        userRepository.updatePassword(user.getEmail(), passwordEncoder.encode(newPassword));
+        revokeTokens(user.getEmail());
+        auditLog.record(AuditLog.Event.PASSWORD_CHANGE, AuditLog.Outcome.SUCCESS, user.getId(),
+                user.getEmail(), caller.getSubject());
+    }
+
+    /**
+     * Déconnexion : révoque le token d'accès présenté et, s'il est fourni, la famille du token de
+     * rafraîchissement du même utilisateur.
+     *
+     * @throws BadCredentialsException si le token d'accès n'est pas un token d'accès valide
+     */
+    public void logout(String accessToken, String refreshToken) {
+        TokenCheck access = jwtUtil.check(accessToken);
+        if (!access.isValid() || access.getToken().getType() != TokenType.ACCESS) {
+            throw new BadCredentialsException("Invalid or expired token");
+        }
+        VerifiedToken verified = access.getToken();
+        revoke(accessToken, verified);
+
+        if (refreshToken != null) {
+            TokenCheck refresh = jwtUtil.check(refreshToken);
+            if (refresh.isValid() && refresh.getToken().getType() == TokenType.REFRESH
+                    && refresh.getToken().getSubject().equals(verified.getSubject())) {
+                revoke(refreshToken, refresh.getToken());
+            }
+        }
+    }
+
+    /**
+     * Révoque un token compromis quel que soit son type (RFC 7009) : le détenir suffit pour le révoquer.
+     * Un token invalide ou déjà expiré est ignoré.
+     */
+    public void revokeToken(String token) {
+        TokenCheck check = jwtUtil.check(token);
+        if (check.isValid()) {
+            revoke(token, check.getToken());
+        }
+    }
+
+    private void revoke(String token, VerifiedToken verified) {
+        if (verified.getType() == TokenType.REFRESH) {
+            // Toute la session : les tokens de rafraîchissement sont à usage unique, seul le dernier compte
+            refreshTokenStore.revoke(verified.getId());
+            return;
+        }
+        tokenRevocationList.revoke(verified.getId(), verified.getSubject(), verified.getExpiresAt());
+        verifiedTokenCache.invalidate(token);
+    }
+
+    /**
+     * Émet un token de rafraîchissement déjà enregistré dans la famille donnée.
+     */
+    private String issueRefreshToken(AuthenticatedUser user, String family) {
+        String tokenId = JwtUtil.newTokenId();
+        refreshTokenStore.register(tokenId, user.getId(), family,
+                System.currentTimeMillis() + JwtUtil.REFRESH_TOKEN_TTL_MILLIS);
+        return jwtUtil.generateRefreshToken(user, tokenId);
+    }
+
     private UserDto createUserDto(User user) {
         return new UserDto(
             user.getId(),
@@ -65,28 +266,44 @@ public class UserService {
         );
     }
 
-    public AuthResponse register(final SignupRequest request) {
-        if (existsByEmail(request.getEmail())) {
-            throw new IllegalArgumentException("Email déjà utilisé");
-        }
+    private UserDto createUserDto(AuthenticatedUser user) {
+        return new UserDto(
+            user.getId(),
+            user.getEmail(),
+            user.getFirstName(),
+            user.getLastName(),
+            user.getRole()
+        );
+    }
 
+    public AuthResponse register(final SignupRequest request) {
         User user = new User(request.getFirstName(),request.getLastName(),request.getEmail(),passwordEncoder.encode(request.getPassword()),"USER");
 
-        User savedUser = userRepository.save(user);
+        // Un seul INSERT : la contrainte unique sur users.email signale les doublons
+        User savedUser;
+        try {
+            savedUser = insertUser(user);
+        } catch (IllegalArgumentException e) {
+            auditLog.record(AuditLog.Event.REGISTER, AuditLog.Outcome.DUPLICATE, request.getEmail());
+            throw e;
+        }
+        userDetailsCache.invalidate(savedUser.getEmail());
+        auditLog.record(AuditLog.Event.REGISTER, AuditLog.Outcome.SUCCESS, savedUser.getId(), savedUser.getEmail(), null);
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(savedUser.getEmail());
-        String accessToken = jwtUtil.generateToken(userDetails);
-        String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+        AuthenticatedUser principal = AuthenticatedUser.from(savedUser);
+        String accessToken = jwtUtil.generateToken(principal);
+        String refreshToken = issueRefreshToken(principal, refreshTokenStore.newFamily(principal.getId()));
 
         return new AuthResponse(
             accessToken,
             refreshToken,
-            createUserDto(savedUser),
+            createUserDto(principal),
             TOKEN_EXPIRATION
         );
     }
 
     public AuthResponse login(LoginRequest loginRequest) {
+        AuthOperationEvent event = AuthOperationEvent.start(AuthOperationEvent.LOGIN);
         try {
             Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -95,12 +312,15 @@ public class UserService {
                 )
             );
 
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            String accessToken = jwtUtil.generateToken(userDetails);
-            String refreshToken = jwtUtil.generateRefreshToken(userDetails);
-
-            User user = findByEmail(loginRequest.getEmail());
+            // Le principal porte déjà la ligne users chargée pour l'authentification : pas de seconde requête
+            AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+            String accessToken = jwtUtil.generateToken(user);
+            String refreshToken = issueRefreshToken(user, refreshTokenStore.newFamily(user.getId()));
+            // Écrit en différé et par lots : la connexion n'attend pas la base
+            loginActivityWriter.recordLogin(user.getId());
+            auditLog.record(AuditLog.Event.LOGIN, AuditLog.Outcome.SUCCESS, user.getId(), user.getEmail(), null);
 
+            event.end("success");
             return new AuthResponse(
                 accessToken,
                 refreshToken,
@@ -108,25 +328,43 @@ public class UserService {
                 TOKEN_EXPIRATION
             );
         } catch (BadCredentialsException e) {
+            event.end("bad_credentials");
+            auditLog.record(AuditLog.Event.LOGIN, AuditLog.Outcome.BAD_CREDENTIALS, loginRequest.getEmail());
             throw new BadCredentialsException("Identifiants invalides");
+        } catch (PasswordHashingBusyException e) {
+            event.end("busy");
+            auditLog.record(AuditLog.Event.LOGIN, AuditLog.Outcome.BUSY, loginRequest.getEmail());
+            throw e;
         } catch (Exception e) {
+            event.end("error");
+            auditLog.record(AuditLog.Event.LOGIN, AuditLog.Outcome.ERROR, loginRequest.getEmail());
             throw new RuntimeException("Erreur lors de l'authentification: " + e.getMessage());
         }
     }
 
     public AuthResponse refreshToken(String refreshToken) {
+        AuthOperationEvent event = AuthOperationEvent.start(AuthOperationEvent.REFRESH);
+        String failure = "invalid";
         try {
-            String username = jwtUtil.extractUsername(refreshToken);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-            if (!jwtUtil.validateToken(refreshToken, userDetails)) {
+            VerifiedToken verified = jwtUtil.verify(refreshToken);
+            if (verified.getType() != TokenType.REFRESH
+                    || !tokenVersionRegistry.isCurrent(verified.getSubject(), verified.getTokenVersion())) {
                 throw new BadCredentialsException("Token de rafraîchissement invalide ou expiré");
             }
+            // Usage unique : un token déjà consommé révoque toute sa famille
+            RefreshTokenStore.Outcome outcome = refreshTokenStore.consume(verified.getId());
+            if (outcome != RefreshTokenStore.Outcome.ROTATED) {
+                failure = outcome.getTag();
+                throw new BadCredentialsException("Token de rafraîchissement invalide ou déjà utilisé");
+            }
 
-            String newAccessToken = jwtUtil.generateToken(userDetails);
-            String newRefreshToken = jwtUtil.generateRefreshToken(userDetails);
-            User user = findByEmail(username);
+            AuthenticatedUser user = (AuthenticatedUser) userDetailsService.loadUserByUsername(verified.getSubject());
 
+            String newAccessToken = jwtUtil.generateToken(user);
+            String newRefreshToken = issueRefreshToken(user, refreshTokenStore.familyOf(verified.getId()));
+            loginActivityWriter.recordRefresh(user.getId());
+
+            event.end("success");
             return new AuthResponse(
                 newAccessToken,
                 newRefreshToken,
@@ -134,33 +372,69 @@ public class UserService {
                 TOKEN_EXPIRATION
             );
         } catch (Exception e) {
+            event.end(failure);
             throw new BadCredentialsException("Erreur lors du rafraîchissement du token: " + e.getMessage());
         }
     }
 
     public UserResponse createUser(CreateUserRequest request, String authToken) {
-        String username = jwtUtil.extractUsername(authToken);
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-        if (!jwtUtil.validateToken(authToken, userDetails)) {
-            throw new BadCredentialsException("Invalid or expired token");
-        }
-
-        if (existsByEmail(request.getEmail())) {
-            throw new IllegalArgumentException("Email déjà utilisé");
-        }
+        VerifiedToken verified = requireAccessToken(authToken);
+        UserDetails userDetails = userDetailsService.loadUserByUsername(verified.getSubject());
 
         User user = new User(request.getFirstName(),request.getLastName(),request.getEmail(),passwordEncoder.encode(request.getPassword()),request.getRole());
-        User savedUser = userRepository.save(user);
+        User savedUser;
+        try {
+            savedUser = insertUser(user);
+        } catch (IllegalArgumentException e) {
+            auditLog.record(AuditLog.Event.CREATE_USER, AuditLog.Outcome.DUPLICATE, AuditLog.UNKNOWN_USER,
+                    request.getEmail(), verified.getSubject());
+            throw e;
+        }
+        userDetailsCache.invalidate(savedUser.getEmail());
+        auditLog.record(AuditLog.Event.CREATE_USER, AuditLog.Outcome.SUCCESS, savedUser.getId(), savedUser.getEmail(),
+                verified.getSubject());
+        // Jeton d'accès seulement : ouvrir une famille de refresh à chaque création ferait évincer
+        // les vraies sessions de l'appelant (max-sessions-per-user)
         String newAccessToken = jwtUtil.generateToken(userDetails);
-        String newRefreshToken = jwtUtil.generateRefreshToken(userDetails);
 
         return new UserResponse(
             "User created successfully",
             createUserDto(savedUser),
             newAccessToken,
-            newRefreshToken,
+            null,
             TOKEN_EXPIRATION
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Insère l'utilisateur immédiatement (flush) et traduit la violation de l'index unique sur l'email
+     * en {@link IllegalArgumentException}, sans requête de vérification préalable. Toute autre violation
+     * est propagée telle quelle.
+     */
+    private User insertUser(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e)) {
+                throw new IllegalArgumentException("Email déjà utilisé");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Whether the error is a violation of {@link User#EMAIL_UNIQUE_INDEX}. Other unique violations (primary
+     * key, e.g. a sequence behind the existing ids) are real failures and must not read as a duplicate email.
+     */
+    static boolean isDuplicateEmail(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException
+                    && UNIQUE_VIOLATION_SQL_STATE.equals(sqlException.getSQLState())) {
+                // Le message nomme l'index violé (PostgreSQL : entre guillemets, H2 : en majuscules)
+                String message = sqlException.getMessage();
+                return message != null && message.toLowerCase(Locale.ROOT).contains(User.EMAIL_UNIQUE_INDEX);
+            }
+        }
+        return false;
+    }
+}
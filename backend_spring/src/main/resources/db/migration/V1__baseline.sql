@@ -0,0 +1,14 @@
+-- Schéma tel que Hibernate le générait (ddl-auto=update) avant le passage aux migrations : id IDENTITY,
+-- unicité sur users.email. Une base existante est marquée en version 1 sans exécuter ce script
+-- (spring.flyway.baseline-on-migrate) et reçoit les migrations suivantes.
+
+create table users (
+    id bigint generated by default as identity,
+    email varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    password varchar(255) not null,
+    role varchar(255) default 'USER' not null,
+    primary key (id),
+    constraint uk_users_email unique (email)
+);
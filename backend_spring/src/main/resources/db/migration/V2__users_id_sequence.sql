@@ -0,0 +1,12 @@
+-- users.id passe d'IDENTITY à la séquence users_seq (allocationSize 50, optimiseur pooled-lo), qui permet
+-- les INSERT en batch JDBC. La séquence démarre après le plus grand id existant et ne recule jamais.
+
+create sequence if not exists users_seq start with 1 increment by 50;
+
+select setval('users_seq', (select coalesce(max(id), 0) + 1 from users), false)
+where (select last_value from users_seq) <= (select coalesce(max(id), 0) from users);
+
+-- Valeur par défaut sur la séquence : un INSERT manuel prend le début d'un bloc libre, sans collision
+alter table users alter column id drop identity if exists;
+alter table users alter column id set default nextval('users_seq');
+alter sequence users_seq owned by users.id;
@@ -0,0 +1,7 @@
+-- token_version : incrémenté pour invalider tous les tokens déjà émis (déconnexion globale, mot de passe).
+-- login_count, last_login_at, last_activity_at : écrits en batch par LoginActivityWriter.
+
+alter table users add column if not exists token_version integer default 0 not null;
+alter table users add column if not exists login_count bigint default 0 not null;
+alter table users add column if not exists last_login_at timestamp(6) with time zone;
+alter table users add column if not exists last_activity_at timestamp(6) with time zone;
@@ -0,0 +1,25 @@
+-- Tokens révoqués un par un, conservés jusqu'à leur expiration (TokenRevocationList)
+create table if not exists revoked_tokens (
+    jti varchar(64) not null,
+    subject varchar(255) not null,
+    expires_at bigint not null,
+    revoked_at bigint not null,
+    constraint pk_revoked_tokens primary key (jti)
+);
+
+create index if not exists idx_revoked_tokens_expires_at on revoked_tokens (expires_at);
+
+-- Refresh tokens à usage unique, stockés hachés (RefreshTokenStore)
+create table if not exists refresh_tokens (
+    token_hash varchar(64) not null,
+    user_id bigint not null,
+    family varchar(32) not null,
+    issued_at bigint not null,
+    expires_at bigint not null,
+    consumed_at bigint,
+    constraint pk_refresh_tokens primary key (token_hash)
+);
+
+create index if not exists idx_refresh_tokens_expires_at on refresh_tokens (expires_at);
+create index if not exists idx_refresh_tokens_family on refresh_tokens (family);
+create index if not exists idx_refresh_tokens_user_id on refresh_tokens (user_id);
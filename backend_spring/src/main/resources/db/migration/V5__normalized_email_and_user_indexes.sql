@@ -0,0 +1,38 @@
+-- Recherche d'email insensible à la casse : email_normalized = lower(trim(email)), écrit par l'entité User,
+-- porte l'unicité à la place de users.email.
+
+alter table users add column if not exists email_normalized varchar(255);
+
+update users set email_normalized = lower(trim(email));
+
+do $$
+begin
+    if exists (select 1 from users group by email_normalized having count(*) > 1) then
+        raise exception 'users: some emails differ only by case or surrounding spaces, merge them before migrating';
+    end if;
+end $$;
+
+alter table users alter column email_normalized set not null;
+
+create unique index if not exists ux_users_email_normalized on users (email_normalized);
+
+-- Contrainte unique sur email : nommée uk_users_email par V1, nom généré par Hibernate sur les bases existantes
+do $$
+declare
+    constraint_name text;
+begin
+    for constraint_name in
+        select con.conname
+        from pg_constraint con
+        join pg_class rel on rel.oid = con.conrelid
+        join pg_attribute att on att.attrelid = rel.oid and att.attnum = con.conkey[1]
+        where rel.relname = 'users' and con.contype = 'u'
+          and array_length(con.conkey, 1) = 1 and att.attname = 'email'
+    loop
+        execute format('alter table users drop constraint %I', constraint_name);
+    end loop;
+end $$;
+
+-- Pagination par clé filtrée par rôle : where role = ? and id > ? order by id
+create index if not exists idx_users_role_id on users (role, id);
+
@@ -0,0 +1,134 @@
+package stage2.authentification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import stage2.authentification.entity.User;
+import stage2.authentification.repository.UserRepository;
+
+/**
+ * Starts the application on a database created by {@code ddl-auto=update} before the migrations existed:
+ * Flyway baselines it at version 1, the later migrations bring it up to date and Hibernate validates it.
+ */
+@SpringBootTest(properties = {"audit.enabled=false", "activity.login.enabled=false"})
+class DatabaseMigrationTest {
+
+    private static final EmbeddedPostgres POSTGRES = startWithPreMigrationSchema();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        POSTGRES.close();
+    }
+
+    @Test
+    void existingDatabaseIsBaselinedThenMigrated() {
+        List<String> versions = jdbcTemplate.queryForList(
+                "select version from flyway_schema_history where success order by installed_rank", String.class);
+        assertEquals(List.of("1", "2", "3", "4", "5"), versions);
+
+        // Lignes existantes : email normalisé rempli, requêtes insensibles à la casse
+        assertEquals(120L, userRepository.findByEmail("BOB@example.com").orElseThrow().getId());
+        assertEquals(1, userRepository.incrementTokenVersion(" Bob@Example.com "));
+        assertEquals(1, userRepository.findTokenVersionByEmail("bob@example.com").orElseThrow());
+        assertEquals(1, userRepository.updatePassword("BOB@EXAMPLE.COM", "new-hash"));
+    }
+
+    @Test
+    void newIdsComeFromTheSequencePastTheExistingOnes() {
+        User saved = userRepository.saveAndFlush(new User("Jane", "Doe", "jane@example.com", "hash", "USER"));
+        assertTrue(saved.getId() > 120, "id " + saved.getId());
+
+        // INSERT sans id (hors Hibernate) : valeur par défaut prise sur la même séquence
+        Long rawId = jdbcTemplate.queryForObject("insert into users (first_name, last_name, email, email_normalized, "
+                + "password) values ('Raw', 'Insert', 'raw@example.com', 'raw@example.com', 'hash') returning id",
+                Long.class);
+        assertTrue(rawId > 120, "id " + rawId);
+    }
+
+    @Test
+    void emailsDifferingOnlyByCaseAreDuplicates() {
+        DataIntegrityViolationException error = assertThrows(DataIntegrityViolationException.class,
+                () -> userRepository.saveAndFlush(new User("Ann", "Other", "ANN@example.com", "hash", "USER")));
+        assertTrue(error.getMostSpecificCause().getMessage().contains(User.EMAIL_UNIQUE_INDEX));
+    }
+
+    @Test
+    void freshDatabaseEndsWithTheSameSchema() throws SQLException {
+        try (Connection connection = POSTGRES.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create database fresh");
+        }
+        DataSource fresh = POSTGRES.getDatabase("postgres", "fresh");
+        Flyway.configure().dataSource(fresh).locations("classpath:db/migration").load().migrate();
+
+        assertEquals(describe(new JdbcTemplate(fresh)), describe(jdbcTemplate));
+    }
+
+    private static List<Map<String, Object>> describe(JdbcTemplate jdbc) {
+        return jdbc.queryForList("select table_name, column_name, data_type, is_nullable, column_default "
+                + "from information_schema.columns where table_schema = 'public' and table_name <> 'flyway_schema_history' "
+                + "union all select tablename, indexname, null, null, null from pg_indexes where schemaname = 'public' "
+                + "and (indexname like 'ux\\_%' or indexname like 'idx\\_%') "
+                + "order by 1, 2");
+    }
+
+    // DDL produite par Hibernate (ddl-auto=update) pour l'entité User d'origine
+    private static EmbeddedPostgres startWithPreMigrationSchema() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            try (Connection connection = postgres.getPostgresDatabase().getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("create table users (id bigint generated by default as identity, "
+                        + "email varchar(255) not null, first_name varchar(255) not null, "
+                        + "last_name varchar(255) not null, password varchar(255) not null, "
+                        + "role varchar(255) default 'USER' not null, primary key (id))");
+                statement.execute("alter table if exists users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email)");
+                statement.execute("insert into users (email, first_name, last_name, password) values "
+                        + "('ann@example.com', 'Ann', 'Doe', 'hash'), ('carl@example.com', 'Carl', 'Doe', 'hash')");
+                statement.execute("insert into users (id, email, first_name, last_name, password, role) values "
+                        + "(120, ' Bob@Example.com ', 'Bob', 'Doe', 'hash', 'ADMIN')");
+            }
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package stage2.authentification.activity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class LoginActivityWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LoginActivityWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        // Thread d'écriture non démarré : le test pilote drainAndFlush lui-même
+        writer = new LoginActivityWriter(jdbcTemplate, new TransactionTemplate(transactionManager),
+                true, 16, 100, Duration.ofHours(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void eventsOfAUserAreMergedIntoOneRow() {
+        writer.recordLogin(7L);
+        writer.recordLogin(7L);
+        writer.recordRefresh(7L);
+        writer.recordRefresh(3L);
+
+        // Ni batch-size ni flush-interval atteints : rien n'est écrit
+        assertEquals(4, writer.drainAndFlush(false));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), any(int[].class));
+
+        writer.drainAndFlush(true);
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture(), any(int[].class));
+
+        // Triées par id ; un utilisateur qui n'a fait que rafraîchir garde sa date de connexion
+        List<Object[]> batch = rows.getValue();
+        assertEquals(2, batch.size());
+        assertEquals(0L, batch.get(0)[0]);
+        assertNull(batch.get(0)[1]);
+        assertEquals(3L, batch.get(0)[3]);
+        assertEquals(2L, batch.get(1)[0]);
+        assertTrue(((Timestamp) batch.get(1)[2]).compareTo((Timestamp) batch.get(1)[1]) >= 0);
+        assertEquals(7L, batch.get(1)[3]);
+        assertEquals(2, writer.getFlushedRowCount());
+    }
+
+    @Test
+    void fullBufferDropsInsteadOfBlocking() {
+        LoginActivityBuffer buffer = new LoginActivityBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i, LoginActivityBuffer.LOGIN, i));
+        }
+        assertFalse(buffer.offer(4, LoginActivityBuffer.LOGIN, 4));
+        assertEquals(1, buffer.getDroppedCount());
+
+        // Vidé dans l'ordre, le slot libéré est réutilisable
+        AtomicLong expected = new AtomicLong();
+        assertEquals(4, buffer.drain((userId, type, timestamp) -> assertEquals(expected.getAndIncrement(), userId), 10));
+        assertTrue(buffer.offer(5, LoginActivityBuffer.REFRESH, 5));
+    }
+
+    @Test
+    void concurrentProducersLoseNothingWhileThereIsRoom() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 10_000;
+        LoginActivityBuffer buffer = new LoginActivityBuffer(1024);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            long userId = p;
+            threads[p] = Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(userId, LoginActivityBuffer.LOGIN, i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+        }
+        start.countDown();
+
+        long[] received = new long[producers];
+        long[] lastTimestamp = {-1, -1, -1, -1};
+        int total = 0;
+        while (total < producers * perProducer) {
+            total += buffer.drain((userId, type, timestamp) -> {
+                // Ordre d'un même producteur conservé
+                assertTrue(timestamp > lastTimestamp[(int) userId]);
+                lastTimestamp[(int) userId] = timestamp;
+                received[(int) userId]++;
+            }, 256);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (long count : received) {
+            assertEquals(perProducer, count);
+        }
+        assertEquals(0, buffer.size());
+    }
+}
@@ -0,0 +1,113 @@
+package stage2.authentification.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class AuditLogTest {
+
+    @TempDir
+    private Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void recordsAreDecodedInOrder() throws Exception {
+        AuditLog auditLog = new AuditLog(true, directory, DataSize.ofMegabytes(1), 0, 64, Duration.ofSeconds(1));
+        auditLog.start();
+        auditLog.record(AuditLog.Event.LOGIN, AuditLog.Outcome.SUCCESS, 42L, "john@example.com", null);
+        auditLog.record(AuditLog.Event.LOGIN, AuditLog.Outcome.BAD_CREDENTIALS, "john@example.com");
+        auditLog.record(AuditLog.Event.CREATE_USER, AuditLog.Outcome.SUCCESS, AuditLog.UNKNOWN_USER,
+                "é".repeat(60) + "@example.com", "admin@example.com");
+        auditLog.stop();
+
+        List<JsonNode> records = readAll();
+        assertEquals(3, records.size());
+        assertEquals(3, auditLog.getWrittenCount());
+
+        JsonNode login = records.get(0);
+        assertEquals("login", login.get("event").asText());
+        assertEquals("success", login.get("outcome").asText());
+        assertEquals(42L, login.get("userId").asLong());
+        assertEquals("john@example.com", login.get("email").asText());
+        // Hors requête HTTP : pas d'adresse client
+        assertTrue(login.get("ip").isNull());
+
+        assertEquals("bad_credentials", records.get(1).get("outcome").asText());
+        assertTrue(records.get(1).get("userId").isNull());
+
+        // Email de 132 octets : coupé à 88 octets sans casser un caractère
+        JsonNode created = records.get(2);
+        assertEquals("é".repeat(44), created.get("email").asText());
+        assertEquals("admin@example.com", created.get("actor").asText());
+        assertTrue(created.get("truncated").asBoolean());
+    }
+
+    @Test
+    void segmentsRotateAndOldOnesAreDeleted() throws Exception {
+        // En-tête + 4 enregistrements par segment, 2 segments conservés
+        DataSize segmentSize = DataSize.ofBytes(5 * AuditRecord.SIZE);
+        AuditLog auditLog = new AuditLog(true, directory, segmentSize, 2, 64, Duration.ofSeconds(1));
+        auditLog.start();
+        for (int i = 0; i < 10; i++) {
+            auditLog.record(AuditLog.Event.REGISTER, AuditLog.Outcome.SUCCESS, i, "user" + i + "@example.com", null);
+        }
+        auditLog.stop();
+
+        List<Path> segments = AuditSegmentWriter.segments(directory);
+        assertEquals(2, segments.size());
+        assertEquals(3, auditLog.getSegmentSequence());
+        List<JsonNode> records = readAll();
+        assertEquals(6, records.size());
+        assertEquals(4L, records.get(0).get("userId").asLong());
+        assertEquals(9L, records.get(5).get("userId").asLong());
+
+        // Un redémarrage ouvre un nouveau segment, à la suite des existants
+        AuditLog restarted = new AuditLog(true, directory, segmentSize, 2, 64, Duration.ofSeconds(1));
+        restarted.start();
+        restarted.record(AuditLog.Event.LOGIN, AuditLog.Outcome.SUCCESS, "user0@example.com");
+        restarted.stop();
+        assertEquals(4, restarted.getSegmentSequence());
+        assertEquals("audit-000000000004.seg", AuditSegmentWriter.segments(directory).get(1).getFileName().toString());
+    }
+
+    @Test
+    void disabledLogWritesNothing() throws Exception {
+        AuditLog auditLog = new AuditLog(false, directory, DataSize.ofMegabytes(1), 0, 64, Duration.ofSeconds(1));
+        auditLog.start();
+        auditLog.record(AuditLog.Event.LOGIN, AuditLog.Outcome.SUCCESS, "john@example.com");
+        auditLog.stop();
+
+        assertEquals(0, auditLog.getRecordedCount());
+        assertTrue(AuditSegmentWriter.segments(directory).isEmpty());
+        assertEquals(0, directory.toFile().list().length);
+    }
+
+    private List<JsonNode> readAll() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AuditLogReader reader = new AuditLogReader();
+        for (Path segment : AuditSegmentWriter.segments(directory)) {
+            reader.read(segment, out);
+        }
+        List<JsonNode> records = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                records.add(objectMapper.readTree(line));
+            }
+        }
+        return records;
+    }
+}
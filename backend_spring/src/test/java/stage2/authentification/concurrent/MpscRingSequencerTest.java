@@ -0,0 +1,89 @@
+package stage2.authentification.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.Test;
+
+class MpscRingSequencerTest {
+
+    @Test
+    void fullRingDropsAndCountsUntilTheConsumerReleases() {
+        MpscRingSequencer ring = new MpscRingSequencer(3);
+        assertEquals(4, ring.capacity());
+
+        for (int i = 0; i < 4; i++) {
+            ring.publish(ring.claim());
+        }
+        assertEquals(-1, ring.claim());
+        assertEquals(1, ring.getDroppedCount());
+
+        assertEquals(0, ring.peek());
+        ring.release();
+        long position = ring.claim();
+        assertEquals(4, position);
+        assertEquals(0, ring.slot(position));
+        assertEquals(4, ring.size());
+    }
+
+    @Test
+    void claimedButUnpublishedSlotIsNotConsumed() {
+        MpscRingSequencer ring = new MpscRingSequencer(4);
+        long first = ring.claim();
+        long second = ring.claim();
+        ring.publish(second);
+
+        // Ordre préservé : la position suivante attend sa publication
+        assertEquals(-1, ring.peek());
+        ring.publish(first);
+        assertEquals(ring.slot(first), ring.peek());
+    }
+
+    @Test
+    void concurrentProducersLoseNothingThatWasAccepted() throws InterruptedException {
+        MpscRingSequencer ring = new MpscRingSequencer(1024);
+        long[] values = new long[ring.capacity()];
+        int producers = 4;
+        int perProducer = 50_000;
+        AtomicLongArray accepted = new AtomicLongArray(producers);
+        long[] consumed = new long[producers];
+
+        Thread[] threads = new Thread[producers];
+        for (int t = 0; t < producers; t++) {
+            int producer = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long position = ring.claim();
+                    if (position >= 0) {
+                        values[ring.slot(position)] = producer;
+                        ring.publish(position);
+                        accepted.incrementAndGet(producer);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        boolean producing = true;
+        while (producing || ring.size() > 0) {
+            producing = false;
+            for (Thread thread : threads) {
+                producing |= thread.isAlive();
+            }
+            int slot;
+            while ((slot = ring.peek()) >= 0) {
+                consumed[(int) values[slot]]++;
+                ring.release();
+            }
+        }
+
+        long total = 0;
+        for (int t = 0; t < producers; t++) {
+            assertEquals(accepted.get(t), consumed[t]);
+            total += consumed[t];
+        }
+        assertEquals(producers * (long) perProducer, total + ring.getDroppedCount());
+        assertTrue(total > 0);
+    }
+}
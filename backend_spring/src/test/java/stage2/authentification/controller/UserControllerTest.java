@@ -0,0 +1,103 @@
+package stage2.authentification.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import stage2.authentification.audit.AuditLog;
+import stage2.authentification.controller.UserController.LoginRequest;
+import stage2.authentification.controller.UserController.SignupRequest;
+import stage2.authentification.security.AuthRateLimiter;
+import stage2.authentification.security.PasswordHashingBusyException;
+import stage2.authentification.security.TokenType;
+import stage2.authentification.security.VerifiedToken;
+import stage2.authentification.service.UserImportService;
+import stage2.authentification.service.UserService;
+
+@ExtendWith(MockitoExtension.class)
+class UserControllerTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private UserImportService userImportService;
+
+    private UserController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new UserController();
+        ReflectionTestUtils.setField(controller, "userService", userService);
+        ReflectionTestUtils.setField(controller, "userImportService", userImportService);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "authRateLimiter", new AuthRateLimiter(false, 0, 1, 1, 1, 1));
+        ReflectionTestUtils.setField(controller, "auditLog",
+                new AuditLog(false, null, DataSize.ofMegabytes(1), 0, 0, Duration.ZERO));
+    }
+
+    @Test
+    void saturatedHashingPoolAnswers503WithRetryAfter() {
+        when(userService.login(any(LoginRequest.class))).thenThrow(new PasswordHashingBusyException(2));
+        when(userService.register(any(SignupRequest.class))).thenThrow(new PasswordHashingBusyException(2));
+        LoginRequest login = new LoginRequest();
+        login.setEmail("john@example.com");
+        login.setPassword("password123");
+
+        assertBusy(controller.login(login, new MockHttpServletRequest()));
+        assertBusy(controller.registerUser(new SignupRequest("John", "Doe", "john@example.com", "password123"),
+                new MockHttpServletRequest()));
+    }
+
+    @Test
+    void bulkImportIsRefusedToNonAdminTokens() {
+        when(userService.requireAccessToken("user-token")).thenReturn(new VerifiedToken("john@example.com",
+                "ROLE_USER", 0, Long.MAX_VALUE, TokenType.ACCESS, 0, "token-id"));
+
+        ResponseEntity<?> response = controller.createUsersBulk("Bearer user-token", new MockHttpServletRequest());
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        verifyNoInteractions(userImportService);
+    }
+
+    @Test
+    void userListAndExportRequireAnAdminToken() throws Exception {
+        when(userService.requireAccessToken("user-token")).thenReturn(new VerifiedToken("john@example.com",
+                "ROLE_USER", 0, Long.MAX_VALUE, TokenType.ACCESS, 0, "token-id"));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.exportUsers(null).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.getUsers(null, 0, 100, null).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.exportUsers("Bearer user-token").getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.getUsers("Bearer user-token", 0, 100, null).getStatusCode());
+        verify(userService, never()).getUsersPage(anyLong(), anyInt(), any());
+    }
+
+    private static void assertBusy(ResponseEntity<?> response) {
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("Service temporairement surchargé, réessayez plus tard",
+                ((Map<?, ?>) response.getBody()).get("message"));
+    }
+}
@@ -0,0 +1,322 @@
+package stage2.authentification.load;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import stage2.authentification.entity.User;
+import stage2.authentification.repository.UserRepository;
+
+/**
+ * End-to-end load suite: boots the whole application on a random port against an in-process H2 database,
+ * seeds {@code load.users} accounts and drives a weighted register/login/refresh/authenticated mix from
+ * {@code load.concurrency} client threads for {@code load.duration}.
+ * <p>
+ * Run with {@code mvn -Pload-test test}; tune with e.g. {@code -Dload.concurrency=64 -Dload.duration=PT60S
+ * -Dload.mix=register:1,login:2,refresh:2,authenticated:15}. Throughput and p50/p99/p999 latencies per
+ * endpoint are printed and written to {@code target/load-test/report.csv}.
+ */
+@Tag("load")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AuthLoadTest {
+
+    private static final String PASSWORD = "load-test-password";
+
+    enum Operation { REGISTER, LOGIN, REFRESH, AUTHENTICATED }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void mixedTraffic() throws Exception {
+        int users = Integer.getInteger("load.users", 1000);
+        int concurrency = Integer.getInteger("load.concurrency", 16);
+        Duration duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+        Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT5S"));
+        Map<Operation, Integer> mix = parseMix(System.getProperty("load.mix", "register:1,login:2,refresh:2,authenticated:15"));
+
+        List<String> emails = seed(users);
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        long warmupEnd = System.nanoTime() + warmup.toNanos();
+        long end = warmupEnd + duration.toNanos();
+        List<Future<Recorder>> results = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            results.add(clients.submit(() -> runClient(emails, mix, warmupEnd, end)));
+        }
+
+        Recorder total = new Recorder();
+        for (Future<Recorder> result : results) {
+            total.merge(result.get());
+        }
+        clients.shutdown();
+
+        String report = total.report(duration);
+        System.out.println(report);
+        Path out = Path.of("target", "load-test", "report.csv");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, total.csv(duration));
+
+        assertTrue(total.successes() > 0, "no successful request");
+    }
+
+    private List<String> seed(int count) {
+        // Un seul hachage BCrypt partagé par tous les comptes : l'amorçage reste rapide
+        String hash = passwordEncoder.encode(PASSWORD);
+        List<String> emails = new ArrayList<>(count);
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String email = "seed-" + i + "@load.test";
+            emails.add(email);
+            // Administrateurs : l'opération "authenticated" lit GET /users, réservé à ce rôle
+            batch.add(new User("Seed", "User" + i, email, hash, "ADMIN"));
+            if (batch.size() == 500) {
+                userRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        userRepository.saveAll(batch);
+        return emails;
+    }
+
+    private Recorder runClient(List<String> emails, Map<Operation, Integer> mix, long warmupEnd, long end)
+            throws Exception {
+        Recorder recorder = new Recorder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Session session = new Session();
+        int weightSum = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+        while (System.nanoTime() < end) {
+            Operation operation = pick(mix, random.nextInt(weightSum));
+            // Le token d'accès vit une minute : on le renouvelle avant qu'il n'expire
+            if (session.accessToken == null) {
+                operation = Operation.LOGIN;
+            } else if (System.nanoTime() - session.issuedAt > Duration.ofSeconds(40).toNanos()) {
+                operation = Operation.REFRESH;
+            }
+
+            long start = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = send(operation, session, emails, random);
+            } catch (IOException e) {
+                // Connexion refusée ou coupée sous forte charge : compté comme une erreur, le client continue
+                if (start >= warmupEnd) {
+                    recorder.record(operation, System.nanoTime() - start, false);
+                }
+                Thread.sleep(100);
+                continue;
+            }
+            long latency = System.nanoTime() - start;
+            boolean ok = response.statusCode() / 100 == 2;
+            // La session reste celle d'un administrateur amorcé : le compte créé par /register (USER) est ignoré
+            if (ok && (operation == Operation.LOGIN || operation == Operation.REFRESH)) {
+                session.update(objectMapper.readTree(response.body()));
+            } else if (!ok && operation == Operation.REFRESH) {
+                session.accessToken = null;
+            }
+            if (start >= warmupEnd) {
+                recorder.record(operation, latency, ok);
+            }
+            // Délestage (503) ou limitation (429) : un vrai client attend Retry-After au lieu de boucler
+            if (response.statusCode() == 503 || response.statusCode() == 429) {
+                long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(1);
+                long remaining = end - System.nanoTime();
+                Thread.sleep(Math.max(0, Math.min(Duration.ofSeconds(retryAfter).toMillis(), remaining / 1_000_000)));
+            }
+        }
+        return recorder;
+    }
+
+    private HttpResponse<String> send(Operation operation, Session session, List<String> emails,
+                                      ThreadLocalRandom random) throws IOException, InterruptedException {
+        HttpRequest request = switch (operation) {
+            case REGISTER -> post("/register", Map.of(
+                    "firstName", "Load", "lastName", "Test",
+                    "email", "reg-" + UUID.randomUUID() + "@load.test", "password", PASSWORD));
+            case LOGIN -> post("/login", Map.of(
+                    "email", emails.get(random.nextInt(emails.size())), "password", PASSWORD));
+            case REFRESH -> post("/refresh", Map.of("token", session.refreshToken));
+            case AUTHENTICATED -> HttpRequest.newBuilder(uri("/users?limit=20"))
+                    .header("Authorization", "Bearer " + session.accessToken)
+                    .GET()
+                    .build();
+        };
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest post(String path, Map<String, String> body) throws IOException {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api/auth" + path);
+    }
+
+    private static Operation pick(Map<Operation, Integer> mix, int ticket) {
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        return Operation.AUTHENTICATED;
+    }
+
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            mix.put(Operation.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+
+    private static final class Session {
+        String accessToken;
+        String refreshToken;
+        long issuedAt;
+
+        void update(JsonNode response) {
+            accessToken = response.path("token").asText(null);
+            refreshToken = response.path("refreshToken").asText(null);
+            issuedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Latences brutes par opération (une instance par thread client, fusionnées à la fin).
+     */
+    private static final class Recorder {
+        private final Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Integer> counts = new EnumMap<>(Operation.class);
+        private final Map<Operation, Integer> errors = new EnumMap<>(Operation.class);
+
+        void record(Operation operation, long latencyNanos, boolean ok) {
+            int count = counts.getOrDefault(operation, 0);
+            long[] values = latencies.computeIfAbsent(operation, op -> new long[1024]);
+            if (count == values.length) {
+                values = java.util.Arrays.copyOf(values, count * 2);
+                latencies.put(operation, values);
+            }
+            values[count] = latencyNanos;
+            counts.put(operation, count + 1);
+            if (!ok) {
+                errors.merge(operation, 1, Integer::sum);
+            }
+        }
+
+        void merge(Recorder other) {
+            for (Operation operation : other.counts.keySet()) {
+                long[] values = other.latencies.get(operation);
+                for (int i = 0; i < other.counts.get(operation); i++) {
+                    record(operation, values[i], true);
+                }
+                errors.merge(operation, other.errors.getOrDefault(operation, 0), Integer::sum);
+            }
+        }
+
+        long successes() {
+            long total = 0;
+            for (Operation operation : counts.keySet()) {
+                total += counts.get(operation) - errors.getOrDefault(operation, 0);
+            }
+            return total;
+        }
+
+        String report(Duration duration) {
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                    "%n%-14s %9s %7s %10s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms"));
+            for (String[] row : rows(duration)) {
+                sb.append(String.format(Locale.ROOT, "%-14s %9s %7s %10s %9s %9s %9s%n", (Object[]) row));
+            }
+            return sb.toString();
+        }
+
+        String csv(Duration duration) {
+            StringBuilder sb = new StringBuilder("endpoint,requests,errors,throughput_rps,p50_ms,p99_ms,p999_ms\n");
+            for (String[] row : rows(duration)) {
+                sb.append(String.join(",", row)).append('\n');
+            }
+            return sb.toString();
+        }
+
+        private List<String[]> rows(Duration duration) {
+            List<String[]> rows = new ArrayList<>();
+            double seconds = duration.toMillis() / 1000.0;
+            for (Operation operation : Operation.values()) {
+                int count = counts.getOrDefault(operation, 0);
+                if (count == 0) {
+                    continue;
+                }
+                long[] sorted = java.util.Arrays.copyOf(latencies.get(operation), count);
+                java.util.Arrays.sort(sorted);
+                rows.add(new String[] {
+                    operation.name().toLowerCase(Locale.ROOT),
+                    String.valueOf(count),
+                    String.valueOf(errors.getOrDefault(operation, 0)),
+                    String.format(Locale.ROOT, "%.1f", count / seconds),
+                    millis(percentile(sorted, 0.50)),
+                    millis(percentile(sorted, 0.99)),
+                    millis(percentile(sorted, 0.999))
+                });
+            }
+            return rows;
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+
+        private static String millis(long nanos) {
+            return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+        }
+    }
+}
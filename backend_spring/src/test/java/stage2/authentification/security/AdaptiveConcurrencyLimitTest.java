@@ -0,0 +1,55 @@
+package stage2.authentification.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    @Test
+    void rejectsOnceTheLimitIsInFlight() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 2, 1, 10, 0.2, 100);
+        int first = limit.tryAcquire();
+        int second = limit.tryAcquire();
+        assertEquals(1, first);
+        assertEquals(2, second);
+        assertEquals(0, limit.tryAcquire());
+        assertEquals(1, limit.getRejectedCount());
+
+        limit.onIgnore();
+        assertEquals(2, limit.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyIsStableAndShrinksWhenItRises() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 10, 2, 100, 0.2, 100);
+        // Limite saturée, latence stable : la limite monte
+        for (int i = 0; i < 50; i++) {
+            int inflight = limit.tryAcquire();
+            limit.onSuccess(10 * MILLI, Math.max(inflight, limit.getLimit()));
+        }
+        int grown = limit.getLimit();
+        assertTrue(grown > 10, "limite " + grown);
+
+        // Latence multipliée par 10 : file d'attente, la limite redescend
+        for (int i = 0; i < 50; i++) {
+            int inflight = limit.tryAcquire();
+            limit.onSuccess(100 * MILLI, Math.max(inflight, limit.getLimit()));
+        }
+        assertTrue(limit.getLimit() < grown / 2, "limite " + limit.getLimit());
+    }
+
+    @Test
+    void backsOffOnDropsDownToTheMinimum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 20, 3, 100, 0.2, 100);
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.onDropped();
+        }
+        assertEquals(3, limit.getLimit());
+        assertEquals(0, limit.getInflight());
+    }
+}
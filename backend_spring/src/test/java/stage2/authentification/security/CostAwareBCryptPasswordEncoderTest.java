@@ -0,0 +1,93 @@
+package stage2.authentification.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class CostAwareBCryptPasswordEncoderTest {
+
+    private static final String EMAIL = "john@example.com";
+    private static final String PASSWORD = "password123";
+
+    @Test
+    void onlyLowerCostsAreUpgraded() {
+        CostAwareBCryptPasswordEncoder encoder = new CostAwareBCryptPasswordEncoder(5);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode(PASSWORD)));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode(PASSWORD)));
+        // Calibré plus bas sur une machine plus lente : les hachages plus forts sont conservés
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode(PASSWORD)));
+        assertFalse(encoder.upgradeEncoding("{noop}password123"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    void costIsReadFromTheHashPrefix() {
+        assertEquals(12, CostAwareBCryptPasswordEncoder.costOf("$2a$12$abcdefghijklmnopqrstuv"));
+        assertEquals(4, CostAwareBCryptPasswordEncoder.costOf("$2b$04$abcdefghijklmnopqrstuv"));
+        assertEquals(-1, CostAwareBCryptPasswordEncoder.costOf("$2a$x4$abcdefghijklmnopqrstuv"));
+        assertEquals(-1, CostAwareBCryptPasswordEncoder.costOf("plain"));
+    }
+
+    @Test
+    void weakerHashIsRehashedOnSuccessfulLogin() {
+        UserDetailsPasswordService passwordService = login(new BCryptPasswordEncoder(4).encode(PASSWORD));
+
+        ArgumentCaptor<String> rehashed = ArgumentCaptor.forClass(String.class);
+        verify(passwordService).updatePassword(any(UserDetails.class), rehashed.capture());
+        assertEquals(5, CostAwareBCryptPasswordEncoder.costOf(rehashed.getValue()));
+        assertTrue(new BCryptPasswordEncoder().matches(PASSWORD, rehashed.getValue()));
+    }
+
+    @Test
+    void strongerHashIsNotDowngradedOnLogin() {
+        UserDetailsPasswordService passwordService = login(new BCryptPasswordEncoder(6).encode(PASSWORD));
+
+        verify(passwordService, never()).updatePassword(any(UserDetails.class), anyString());
+    }
+
+    @Test
+    void calibrationStaysWithinBounds() {
+        // Objectif inatteignable : coût minimal ; objectif très large : coût maximal
+        assertEquals(4, BCryptCostCalibrator.calibrate(0, 4, 6));
+        assertEquals(6, BCryptCostCalibrator.calibrate(60_000, 4, 6));
+        int cost = BCryptCostCalibrator.calibrate(5, 4, 8);
+        assertTrue(cost >= 4 && cost <= 8, "coût " + cost);
+    }
+
+    @Test
+    void configuredStrengthSkipsCalibration() {
+        assertEquals(7, new BCryptCostCalibrator(7, 0, 10, 14).getStrength());
+    }
+
+    /**
+     * Authenticates through the same provider upgrade path as the application and returns the password
+     * service so the test can check whether the stored hash was replaced.
+     */
+    private static UserDetailsPasswordService login(String storedHash) {
+        UserDetails user = User.withUsername(EMAIL).password(storedHash).authorities("ROLE_USER").build();
+        UserDetailsPasswordService passwordService = mock(UserDetailsPasswordService.class);
+        when(passwordService.updatePassword(any(UserDetails.class), anyString())).thenReturn(user);
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(email -> user);
+        provider.setPasswordEncoder(new CostAwareBCryptPasswordEncoder(5));
+        provider.setUserDetailsPasswordService(passwordService);
+        provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD));
+        return passwordService;
+    }
+}
@@ -0,0 +1,87 @@
+package stage2.authentification.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import stage2.authentification.controller.JwksController;
+import stage2.authentification.metrics.AuthMetrics;
+
+class JwtKeyRingTest {
+
+    private static final UserDetails JOHN =
+            User.withUsername("john@example.com").password("unused").authorities("ROLE_USER").build();
+
+    @Test
+    void previousKeyStillVerifiesAfterRotationAndBothKeysArePublished() throws Exception {
+        // La clé suivante est publiée 250 ms avant de signer, l'ancienne reste acceptée 10 min
+        JwtKeyRing ring = new JwtKeyRing(Duration.ofMillis(300), Duration.ofMillis(250), Duration.ofMinutes(10), "");
+        JwtUtil jwtUtil = jwtUtil(ring);
+        JwtKeyRing.SigningKey previous = ring.activeKey();
+        String previousToken = jwtUtil.generateToken(JOHN);
+
+        JwtKeyRing.SigningKey next = rotateUntilActive(ring, previous);
+        assertNotEquals(previous.getKid(), next.getKid());
+        String nextToken = jwtUtil.generateToken(JOHN);
+
+        assertTrue(jwtUtil.check(previousToken).isValid());
+        assertTrue(jwtUtil.check(nextToken).isValid());
+        assertTrue(publishedKids(ring).containsAll(List.of(previous.getKid(), next.getKid())));
+    }
+
+    @Test
+    void retiredKeyIsNoLongerAccepted() throws Exception {
+        JwtKeyRing ring = new JwtKeyRing(Duration.ofMillis(300), Duration.ofMillis(250), Duration.ZERO, "");
+        JwtUtil jwtUtil = jwtUtil(ring);
+        JwtKeyRing.SigningKey previous = ring.activeKey();
+        String previousToken = jwtUtil.generateToken(JOHN);
+
+        rotateUntilActive(ring, previous);
+        // retired-ttl nul : l'ancienne clé est retirée dès l'activation de la suivante
+        ring.rotate();
+
+        assertSame(TokenCheck.BAD_SIGNATURE, jwtUtil.check(previousToken));
+        assertFalse(publishedKids(ring).contains(previous.getKid()));
+    }
+
+    private static JwtKeyRing.SigningKey rotateUntilActive(JwtKeyRing ring, JwtKeyRing.SigningKey previous)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (ring.activeKey() == previous && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            ring.rotate();
+        }
+        return ring.activeKey();
+    }
+
+    private static JwtUtil jwtUtil(JwtKeyRing ring) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "keyRing", ring);
+        ReflectionTestUtils.setField(jwtUtil, "tokenVersionRegistry", mock(TokenVersionRegistry.class));
+        ReflectionTestUtils.setField(jwtUtil, "authMetrics", new AuthMetrics(new SimpleMeterRegistry()));
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static List<String> publishedKids(JwtKeyRing ring) {
+        JwksController controller = new JwksController();
+        ReflectionTestUtils.setField(controller, "keyRing", ring);
+        ReflectionTestUtils.setField(controller, "maxAge", Duration.ofMinutes(5));
+        @SuppressWarnings("unchecked")
+        List<Map<String, String>> keys = (List<Map<String, String>>) controller.jwks().getBody().get("keys");
+        return keys.stream().map(key -> key.get("kid")).toList();
+    }
+}
@@ -0,0 +1,113 @@
+package stage2.authentification.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import stage2.authentification.metrics.AuthMetrics;
+
+class PasswordHashingExecutorTest {
+
+    // Encodeur identité : seule la délégation au pool est testée ici
+    private static final PasswordEncoder PLAIN = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    };
+
+    // 1 thread, 1 place dans la file : la troisième tâche simultanée est refusée
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, 3);
+    private final CountDownLatch running = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void fullQueueIsRejectedImmediately() throws Exception {
+        CompletableFuture<String> busy = executor.submit(this::block);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+        PasswordHashingBusyException error = assertThrows(PasswordHashingBusyException.class,
+                () -> executor.submit(() -> "refused"));
+        assertEquals(3, error.getRetryAfterSeconds());
+        assertEquals(1, executor.getRejectedCount());
+        assertEquals(1, executor.getQueueDepth());
+        assertEquals(1, executor.getQueueCapacity());
+
+        release.countDown();
+        assertEquals("hashed", busy.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        // Compté juste après la complétion du résultat
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getCompletedCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(2, executor.getCompletedCount());
+    }
+
+    @Test
+    void queueWaitIsAccounted() throws Exception {
+        executor.submit(this::block);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = executor.submit(() -> "queued");
+        Thread.sleep(50);
+
+        release.countDown();
+        queued.get(5, TimeUnit.SECONDS);
+
+        // La tâche en file a attendu que le thread unique se libère
+        long waited = TimeUnit.MILLISECONDS.toNanos(50);
+        assertTrue(executor.getTotalWaitNanos() >= waited, "attente totale " + executor.getTotalWaitNanos());
+        assertTrue(executor.getMaxWaitNanosAndReset() >= waited);
+        assertEquals(0, executor.getMaxWaitNanosAndReset());
+    }
+
+    @Test
+    void encoderSurfacesSaturationAsBusy() throws Exception {
+        OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(PLAIN, executor,
+                new AuthMetrics(new SimpleMeterRegistry()));
+        executor.submit(this::block);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = executor.submit(() -> "queued");
+
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("password123"));
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.matches("password123", "password123"));
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.encodeAsync("password123"));
+        assertEquals(3, executor.getRejectedCount());
+
+        release.countDown();
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals("password123", encoder.encode("password123"));
+    }
+
+    private String block() {
+        running.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "hashed";
+    }
+}
@@ -0,0 +1,69 @@
+package stage2.authentification.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import stage2.authentification.entity.RefreshToken;
+import stage2.authentification.repository.RefreshTokenRepository;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenStoreTest {
+
+    @Mock
+    private RefreshTokenRepository repository;
+
+    private RefreshTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new RefreshTokenStore(repository, 2, 1000, 10);
+    }
+
+    @Test
+    void tokenConsumedOnAnotherInstanceIsAReuse() {
+        // Inconnu de l'index : lu en base, puis l'UPDATE conditionnel ne touche aucune ligne
+        String hash = RefreshTokenStore.hash("jti-1");
+        when(repository.findById(hash)).thenReturn(Optional.of(
+                new RefreshToken(hash, 42L, "family-1", 0L, System.currentTimeMillis() + 60_000)));
+        when(repository.markConsumed(eq(hash), anyLong())).thenReturn(0);
+
+        assertEquals(RefreshTokenStore.Outcome.REUSED, store.consume("jti-1"));
+        verify(repository).deleteFamily("family-1");
+        assertEquals(RefreshTokenStore.Outcome.UNKNOWN, store.consume("jti-1"));
+    }
+
+    @Test
+    void loginBeyondTheSessionLimitRevokesTheOldestFamilies() {
+        when(repository.findLiveFamilies(eq(42L), anyLong())).thenReturn(List.of("newest", "older", "oldest"));
+
+        store.newFamily(42L);
+
+        verify(repository, never()).deleteFamily("newest");
+        verify(repository).deleteFamily("older");
+        verify(repository).deleteFamily("oldest");
+    }
+
+    @Test
+    void purgeDeletesInBatchesUntilAShortOne() {
+        when(repository.deleteExpiredBatch(anyLong(), eq(10))).thenReturn(10, 10, 3);
+
+        store.purgeExpired();
+
+        verify(repository, times(3)).deleteExpiredBatch(anyLong(), eq(10));
+        assertEquals(23, store.getPurgedCount());
+    }
+}
@@ -0,0 +1,66 @@
+package stage2.authentification.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketLimiterTest {
+
+    @Test
+    void burstThenRejectWithRetryDelay() {
+        // 1 jeton par minute : pas de recharge pendant le test
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1024, 3, 1);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("john@example.com"));
+        }
+        long wait = limiter.tryAcquire("john@example.com");
+        assertTrue(wait > 50_000 && wait <= 60_000, "attente " + wait);
+        assertEquals(1, limiter.getRejectedCount());
+
+        // Clé insensible à la casse, seaux indépendants par clé
+        assertTrue(limiter.tryAcquire("John@Example.com") > 0);
+        assertEquals(0, limiter.tryAcquire("jane@example.com"));
+    }
+
+    @Test
+    void bucketRefillsOverTime() throws InterruptedException {
+        // 60000 jetons par minute = 1 par milliseconde
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1024, 1, 60_000);
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+        Thread.sleep(5);
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheBurst() throws InterruptedException {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1024, 100, 1);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire("192.168.1.1") == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100, allowed.get());
+    }
+}
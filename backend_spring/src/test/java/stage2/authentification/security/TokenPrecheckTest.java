@@ -0,0 +1,97 @@
+package stage2.authentification.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import stage2.authentification.metrics.AuthMetrics;
+
+class TokenPrecheckTest {
+
+    private static final int SIGNATURE = TokenPrecheck.HS256_SIGNATURE_LENGTH;
+
+    private JwtUtil jwtUtil;
+    private String validToken;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "tokenVersionRegistry", new TokenVersionRegistry());
+        ReflectionTestUtils.setField(jwtUtil, "authMetrics", new AuthMetrics(new SimpleMeterRegistry()));
+        validToken = jwtUtil.generateToken(User.withUsername("john@example.com").password("").roles("USER").build());
+    }
+
+    @Test
+    void issuedTokenIsPlausibleAndValid() {
+        assertEquals(TokenPrecheck.Result.PLAUSIBLE,
+                TokenPrecheck.check(validToken, System.currentTimeMillis(), SIGNATURE));
+        assertTrue(jwtUtil.check(validToken).isValid());
+    }
+
+    @Test
+    void garbageIsMalformedWithoutParsing() {
+        long now = System.currentTimeMillis();
+        assertEquals(TokenPrecheck.Result.MALFORMED, TokenPrecheck.check(null, now, SIGNATURE));
+        assertEquals(TokenPrecheck.Result.MALFORMED, TokenPrecheck.check("", now, SIGNATURE));
+        assertEquals(TokenPrecheck.Result.MALFORMED, TokenPrecheck.check("undefined", now, SIGNATURE));
+        assertEquals(TokenPrecheck.Result.MALFORMED, TokenPrecheck.check("a.b.c", now, SIGNATURE));
+        // Signature tronquée, segment en trop, caractère hors alphabet base64url
+        assertEquals(TokenPrecheck.Result.MALFORMED,
+                TokenPrecheck.check(validToken.substring(0, validToken.length() - 1), now, SIGNATURE));
+        assertEquals(TokenPrecheck.Result.MALFORMED, TokenPrecheck.check(validToken + ".x", now, SIGNATURE));
+        assertEquals(TokenPrecheck.Result.MALFORMED,
+                TokenPrecheck.check(validToken.replaceFirst("\\.", ".+"), now, SIGNATURE));
+        assertSame(TokenCheck.MALFORMED, jwtUtil.check("not-a-jwt"));
+    }
+
+    @Test
+    void pastExpIsExpired() {
+        String token = token("{\"sub\":\"john@example.com\",\"exp\":1000}");
+        assertEquals(TokenPrecheck.Result.EXPIRED, TokenPrecheck.check(token, System.currentTimeMillis(), SIGNATURE));
+        assertSame(TokenCheck.EXPIRED, jwtUtil.check(token));
+    }
+
+    @Test
+    void expInsideAStringValueIsIgnored() {
+        // Un "exp" échappé dans une valeur ne doit pas être pris pour le claim
+        String token = token("{\"sub\":\"x\\\",\\\"exp\\\":1000\",\"exp\":99999999999}");
+        assertEquals(TokenPrecheck.Result.PLAUSIBLE, TokenPrecheck.check(token, System.currentTimeMillis(), SIGNATURE));
+    }
+
+    @Test
+    void nestedExpIsIgnored() {
+        // Seul le claim de premier niveau compte, pas un "exp" dans un objet ou un tableau imbriqué
+        String token = token("{\"sub\":\"x\",\"cnf\":{\"exp\":1000},\"aud\":[{\"exp\":1000}],"
+                + "\"exp\":99999999999}");
+        assertEquals(TokenPrecheck.Result.PLAUSIBLE, TokenPrecheck.check(token, System.currentTimeMillis(), SIGNATURE));
+
+        String withoutTopLevelExp = token("{\"sub\":\"x\",\"cnf\":{\"exp\":1000}}");
+        assertEquals(TokenPrecheck.Result.PLAUSIBLE,
+                TokenPrecheck.check(withoutTopLevelExp, System.currentTimeMillis(), SIGNATURE));
+    }
+
+    @Test
+    void tamperedSignatureIsRejectedAsBadSignature() {
+        int i = validToken.length() - 10;
+        char c = validToken.charAt(i);
+        String tampered = validToken.substring(0, i) + (c == 'A' ? 'B' : 'A') + validToken.substring(i + 1);
+        assertSame(TokenCheck.BAD_SIGNATURE, jwtUtil.check(tampered));
+    }
+
+    private static String token(String payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+                + "." + "A".repeat(SIGNATURE);
+    }
+}
@@ -0,0 +1,95 @@
+package stage2.authentification.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import stage2.authentification.entity.RevokedToken;
+import stage2.authentification.repository.RevokedTokenRepository;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationListTest {
+
+    @Mock
+    private RevokedTokenRepository repository;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        revocationList = new TokenRevocationList(repository, 1000, 0.01);
+    }
+
+    @Test
+    void revokedIdIsFoundAndPersisted() {
+        long exp = System.currentTimeMillis() + 60_000;
+        revocationList.revoke("jti-1", "john@example.com", exp);
+
+        assertTrue(revocationList.isRevoked("jti-1"));
+        assertFalse(revocationList.isRevoked("jti-2"));
+        assertFalse(revocationList.isRevoked(null));
+        verify(repository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void expiredTokenIsNotRecorded() {
+        revocationList.revoke("jti-1", "john@example.com", System.currentTimeMillis() - 1);
+
+        assertFalse(revocationList.isRevoked("jti-1"));
+        verify(repository, never()).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void refreshLoadsOtherInstancesAndDropsExpiredIds() {
+        long now = System.currentTimeMillis();
+        revocationList.revoke("local", "john@example.com", now + 60_000);
+        revocationList.revoke("short", "john@example.com", now + 1);
+        when(repository.findActive(anyLong()))
+                .thenReturn(List.of(new RevokedToken("remote", "jane@example.com", now + 60_000, now)));
+
+        sleepPast(now + 1);
+        revocationList.refresh();
+
+        assertTrue(revocationList.isRevoked("local"));
+        assertTrue(revocationList.isRevoked("remote"));
+        assertFalse(revocationList.isRevoked("short"));
+        assertEquals(2, revocationList.size());
+        verify(repository).deleteExpired(anyLong());
+    }
+
+    @Test
+    void bloomFilterNeverMissesAndStaysNearItsFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("in-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("in-" + i));
+            if (filter.mightContain("out-" + i)) {
+                falsePositives++;
+            }
+        }
+        // Taille arrondie à une puissance de deux : le taux réel est au plus celui demandé, à l'aléa près
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+    }
+
+    private static void sleepPast(long millis) {
+        while (System.currentTimeMillis() <= millis) {
+            Thread.onSpinWait();
+        }
+    }
+}
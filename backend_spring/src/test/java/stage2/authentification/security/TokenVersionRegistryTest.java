@@ -0,0 +1,71 @@
+package stage2.authentification.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import stage2.authentification.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+class TokenVersionRegistryTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final TokenVersionRegistry registry = new TokenVersionRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "userRepository", userRepository);
+    }
+
+    @Test
+    void versionsAreKeyedByNormalizedEmail() {
+        when(userRepository.incrementTokenVersion(" John@Example.com ")).thenReturn(1);
+        when(userRepository.findTokenVersionByEmail(" John@Example.com ")).thenReturn(Optional.of(1));
+
+        registry.revokeAll(" John@Example.com ");
+
+        assertEquals(1, registry.currentVersion("john@example.com"));
+        assertFalse(registry.isCurrent("JOHN@example.com", 0));
+        assertTrue(registry.isCurrent("john@example.com", 1));
+        assertEquals(0, registry.currentVersion("jane@example.com"));
+    }
+
+    @Test
+    void loadedVersionsAreFoundWhateverTheCase() {
+        when(userRepository.findRevokedTokenVersions())
+                .thenReturn(List.<Object[]>of(new Object[] {"john@example.com", 3}));
+
+        registry.load();
+
+        assertFalse(registry.isCurrent("John@Example.com", 2));
+        assertTrue(registry.isCurrent("John@Example.com", 3));
+    }
+
+    @Test
+    void refreshPicksUpRevocationsFromOtherInstancesWithoutGoingBack() {
+        when(userRepository.incrementTokenVersion("john@example.com")).thenReturn(1);
+        when(userRepository.findTokenVersionByEmail("john@example.com")).thenReturn(Optional.of(5));
+        registry.revokeAll("john@example.com");
+        // Autre instance : jane révoquée, et une lecture plus ancienne pour john
+        when(userRepository.findRevokedTokenVersions()).thenReturn(List.<Object[]>of(
+                new Object[] {"jane@example.com", 2}, new Object[] {"john@example.com", 4}));
+
+        registry.refresh();
+
+        assertEquals(2, registry.currentVersion("Jane@Example.com"));
+        assertEquals(5, registry.currentVersion("john@example.com"));
+    }
+}
@@ -0,0 +1,164 @@
+package stage2.authentification.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+class UserDetailsCacheTest {
+
+    private static final String EMAIL = "john@example.com";
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        UserDetailsCache cache = new UserDetailsCache(100, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, UserDetails> loader = email -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return user(email);
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Future<UserDetails> first = pool.submit(() -> cache.get(EMAIL, loader));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<?>[] waiters = new Future<?>[7];
+            for (int i = 0; i < waiters.length; i++) {
+                waiters[i] = pool.submit(() -> cache.get(EMAIL, loader));
+            }
+            // Tous les appelants attendent le chargement en cours avant qu'il ne se termine
+            waitUntil(() -> cache.getHitCount() == waiters.length);
+            release.countDown();
+
+            UserDetails loaded = first.get(5, TimeUnit.SECONDS);
+            for (Future<?> waiter : waiters) {
+                assertSame(loaded, waiter.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void failedLoadIsPropagatedToWaitersAndNotCached() throws Exception {
+        UserDetailsCache cache = new UserDetailsCache(100, Duration.ofMinutes(5));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, UserDetails> failing = email -> {
+            loading.countDown();
+            await(release);
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<UserDetails> first = pool.submit(() -> cache.get(EMAIL, failing));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<UserDetails> waiter = pool.submit(() -> cache.get(EMAIL, failing));
+            waitUntil(() -> cache.getHitCount() == 1);
+            release.countDown();
+
+            assertTrue(assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS)).getCause()
+                    instanceof UsernameNotFoundException);
+            assertTrue(assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS)).getCause()
+                    instanceof UsernameNotFoundException);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // L'échec n'est pas resté en cache : l'appel suivant recharge
+        assertEquals(0, cache.size());
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(EMAIL, email -> {
+            loads.incrementAndGet();
+            return user(email);
+        });
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void expiredEntryIsReloaded() throws InterruptedException {
+        UserDetailsCache cache = new UserDetailsCache(100, Duration.ofMillis(1));
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, UserDetails> loader = email -> {
+            loads.incrementAndGet();
+            return user(email);
+        };
+
+        cache.get(EMAIL, loader);
+        Thread.sleep(5);
+        cache.get(EMAIL, loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void sizeStaysBounded() {
+        UserDetailsCache cache = new UserDetailsCache(10, Duration.ofMinutes(5));
+        for (int i = 0; i < 50; i++) {
+            cache.get("user" + i + "@example.com", UserDetailsCacheTest::user);
+            assertTrue(cache.size() <= 10, "taille " + cache.size());
+        }
+        assertTrue(cache.getEvictionCount() >= 40);
+    }
+
+    @Test
+    void keysIgnoreCaseAndInvalidateDropsTheEntry() {
+        UserDetailsCache cache = new UserDetailsCache(100, Duration.ofMinutes(5));
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, UserDetails> loader = email -> {
+            loads.incrementAndGet();
+            return user(email);
+        };
+
+        cache.get(EMAIL, loader);
+        cache.get(" John@Example.COM ", loader);
+        assertEquals(1, loads.get());
+
+        cache.invalidate("JOHN@example.com");
+        cache.get(EMAIL, loader);
+        assertEquals(2, loads.get());
+    }
+
+    private static UserDetails user(String email) {
+        return User.withUsername(email).password("").authorities("ROLE_USER").build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition jamais atteinte");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package stage2.authentification.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+class VerifiedTokenCacheTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    void secondPresentationIsAHit() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 1024);
+        CountingChecker checker = new CountingChecker().valid("token-a", "john@example.com", MINUTE);
+
+        TokenCheck first = cache.getOrCheck("token-a", checker);
+        TokenCheck second = cache.getOrCheck("token-a", checker);
+
+        assertSame(first, second);
+        assertEquals(1, checker.calls("token-a"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void rejectedTokensAndOtherTokensAreMisses() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 1024);
+        CountingChecker checker = new CountingChecker().valid("token-a", "john@example.com", MINUTE);
+
+        cache.getOrCheck("token-a", checker);
+        assertFalse(cache.getOrCheck("garbage", checker).isValid());
+        assertFalse(cache.getOrCheck("garbage", checker).isValid());
+
+        // Les tokens refusés ne sont jamais mis en cache
+        assertEquals(2, checker.calls("garbage"));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void fullSetEvictsTheEntryExpiringFirst() {
+        // Deux slots : un seul ensemble, tous les tokens s'y disputent la place
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 2);
+        CountingChecker checker = new CountingChecker()
+                .valid("soon", "a@example.com", MINUTE)
+                .valid("late", "b@example.com", 10 * MINUTE)
+                .valid("new", "c@example.com", 5 * MINUTE);
+
+        cache.getOrCheck("soon", checker);
+        cache.getOrCheck("late", checker);
+        cache.getOrCheck("new", checker);
+
+        cache.getOrCheck("late", checker);
+        cache.getOrCheck("new", checker);
+        cache.getOrCheck("soon", checker);
+
+        assertEquals(1, checker.calls("late"));
+        assertEquals(1, checker.calls("new"));
+        assertEquals(2, checker.calls("soon"));
+    }
+
+    @Test
+    void expiredEntryIsNotServed() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 1024);
+        CountingChecker checker = new CountingChecker().valid("short", "john@example.com", 20);
+
+        cache.getOrCheck("short", checker);
+        Thread.sleep(30);
+        assertFalse(cache.getOrCheck("short", checker).isValid());
+
+        assertEquals(2, checker.calls("short"));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void concurrentWritersNeverPairADigestWithAnotherTokensClaims() throws InterruptedException {
+        // Petite table, beaucoup de tokens : les mêmes slots sont réécrits en permanence
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 8);
+        long expiresAt = System.currentTimeMillis() + MINUTE;
+        Function<String, TokenCheck> checker = token -> TokenCheck.valid(
+                new VerifiedToken(token, "ROLE_USER", 0, expiresAt, TokenType.ACCESS, 0, token));
+        AtomicInteger mismatches = new AtomicInteger();
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int seed = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    String token = "token-" + ((i * 7 + seed) % 64);
+                    if (!token.equals(cache.getOrCheck(token, checker).getToken().getSubject())) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, mismatches.get());
+        assertTrue(cache.getHitCount() > 0);
+    }
+
+    @Test
+    void invalidationDropsTheTokenOrEveryTokenOfTheSubject() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 1024);
+        CountingChecker checker = new CountingChecker()
+                .valid("john-1", "john@example.com", MINUTE)
+                .valid("john-2", "john@example.com", MINUTE)
+                .valid("jane-1", "jane@example.com", MINUTE);
+        cache.getOrCheck("john-1", checker);
+        cache.getOrCheck("john-2", checker);
+        cache.getOrCheck("jane-1", checker);
+
+        cache.invalidate("jane-1");
+        cache.invalidateSubject("john@example.com");
+        cache.getOrCheck("john-1", checker);
+        cache.getOrCheck("john-2", checker);
+        cache.getOrCheck("jane-1", checker);
+
+        assertEquals(2, checker.calls("john-1"));
+        assertEquals(2, checker.calls("john-2"));
+        assertEquals(2, checker.calls("jane-1"));
+    }
+
+    @Test
+    void disabledCacheAlwaysChecks() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(false, 1024);
+        CountingChecker checker = new CountingChecker().valid("token-a", "john@example.com", MINUTE);
+
+        cache.getOrCheck("token-a", checker);
+        cache.getOrCheck("token-a", checker);
+
+        assertEquals(2, checker.calls("token-a"));
+        assertEquals(0, cache.getCapacity());
+    }
+
+    /**
+     * Stands in for {@link JwtUtil#check(String)}: known tokens are valid until their lifetime elapses,
+     * anything else is malformed.
+     */
+    private static final class CountingChecker implements Function<String, TokenCheck> {
+        private final Map<String, VerifiedToken> tokens = new HashMap<>();
+        private final Map<String, Integer> calls = new HashMap<>();
+
+        CountingChecker valid(String token, String subject, long ttlMillis) {
+            long now = System.currentTimeMillis();
+            tokens.put(token, new VerifiedToken(subject, "ROLE_USER", now, now + ttlMillis, TokenType.ACCESS, 0,
+                    token));
+            return this;
+        }
+
+        int calls(String token) {
+            return calls.getOrDefault(token, 0);
+        }
+
+        @Override
+        public TokenCheck apply(String token) {
+            calls.merge(token, 1, Integer::sum);
+            VerifiedToken verified = tokens.get(token);
+            if (verified == null) {
+                return TokenCheck.MALFORMED;
+            }
+            return verified.isExpired(System.currentTimeMillis()) ? TokenCheck.EXPIRED : TokenCheck.valid(verified);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package stage2.authentification.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import stage2.authentification.metrics.AuthMetrics;
+import stage2.authentification.repository.RevokedTokenRepository;
+import stage2.authentification.security.JwtUtil;
+import stage2.authentification.security.TokenRevocationList;
+import stage2.authentification.security.TokenVersionRegistry;
+import stage2.authentification.security.VerifiedTokenCache;
+
+@ExtendWith(MockitoExtension.class)
+class TokenIntrospectionServiceTest {
+
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JwtUtil jwtUtil;
+    private TokenRevocationList tokenRevocationList;
+    private UserDetails john;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "tokenVersionRegistry", tokenVersionRegistry);
+        ReflectionTestUtils.setField(jwtUtil, "authMetrics", new AuthMetrics(new SimpleMeterRegistry()));
+        tokenRevocationList = new TokenRevocationList(revokedTokenRepository, 1000, 0.01);
+        john = User.withUsername("john@example.com").password("").roles("USER").build();
+    }
+
+    @Test
+    void eachTokenGetsOneLineInInputOrder() throws Exception {
+        when(tokenVersionRegistry.isCurrent(anyString(), anyInt())).thenReturn(true);
+        String access = jwtUtil.generateToken(john);
+        String revoked = jwtUtil.generateToken(john);
+        tokenRevocationList.revoke(jwtUtil.verify(revoked).getId(), "john@example.com", System.currentTimeMillis() + 60_000);
+        String refresh = jwtUtil.generateRefreshToken(john, JwtUtil.newTokenId());
+
+        // Blocs de 2 tokens vérifiés sur 2 threads
+        List<JsonNode> lines = run(service(2, 2, 100), List.of(access, "not-a-jwt", refresh, revoked, access));
+
+        assertEquals(5, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(i, lines.get(i).get("index").asInt());
+        }
+        JsonNode first = lines.get(0);
+        assertTrue(first.get("active").asBoolean());
+        assertEquals("john@example.com", first.get("sub").asText());
+        assertEquals("ROLE_USER", first.get("role").asText());
+        assertEquals("access", first.get("token_type").asText());
+        assertTrue(first.get("exp").asLong() > System.currentTimeMillis() / 1000);
+        // Inactif : rien d'autre que l'index
+        assertFalse(lines.get(1).get("active").asBoolean());
+        assertFalse(lines.get(1).has("sub"));
+        assertFalse(lines.get(2).get("active").asBoolean());
+        assertFalse(lines.get(3).get("active").asBoolean());
+        assertTrue(lines.get(4).get("active").asBoolean());
+    }
+
+    @Test
+    void oversizedBatchEndsWithAnErrorLine() throws Exception {
+        when(tokenVersionRegistry.isCurrent(anyString(), anyInt())).thenReturn(true);
+        String access = jwtUtil.generateToken(john);
+        TokenIntrospectionService service = service(1, 2, 3);
+
+        List<JsonNode> lines = run(service, List.of(access, access, access, access));
+
+        assertEquals(4, lines.size());
+        assertEquals(2, lines.get(2).get("index").asInt());
+        assertTrue(lines.get(3).has("error"));
+        // La place du lot est rendue même quand il est refusé en cours de route
+        assertTrue(service.tryStartBatch());
+    }
+
+    @Test
+    void concurrentBatchesAreBounded() {
+        TokenIntrospectionService service = service(1, 2, 10);
+        assertTrue(service.tryStartBatch());
+        assertFalse(service.tryStartBatch());
+        assertEquals(1, service.getRejectedBatchCount());
+    }
+
+    private TokenIntrospectionService service(int threads, int chunkSize, int maxBatchSize) {
+        return new TokenIntrospectionService(jwtUtil, new VerifiedTokenCache(false, 0), tokenVersionRegistry,
+                tokenRevocationList, objectMapper, threads, chunkSize, maxBatchSize, 1);
+    }
+
+    private List<JsonNode> run(TokenIntrospectionService service, List<String> tokens) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(service.tryStartBatch());
+        service.introspect(new ByteArrayInputStream(objectMapper.writeValueAsBytes(tokens)), out);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
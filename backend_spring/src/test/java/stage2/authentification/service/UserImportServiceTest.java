@@ -0,0 +1,166 @@
+package stage2.authentification.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import stage2.authentification.dto.BulkImportResult;
+import stage2.authentification.dto.BulkImportRow;
+import stage2.authentification.dto.BulkImportRow.Status;
+import stage2.authentification.entity.User;
+import stage2.authentification.repository.UserRepository;
+import stage2.authentification.security.OffloadingPasswordEncoder;
+import stage2.authentification.security.PasswordHashingBusyException;
+import stage2.authentification.security.PasswordHashingExecutor;
+import stage2.authentification.security.UserDetailsCache;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private OffloadingPasswordEncoder passwordEncoder;
+
+    @Mock
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new UserImportService();
+        ReflectionTestUtils.setField(importService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(importService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(importService, "passwordHashingExecutor", passwordHashingExecutor);
+        ReflectionTestUtils.setField(importService, "userDetailsCache", new UserDetailsCache(0, Duration.ZERO));
+        ReflectionTestUtils.setField(importService, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(importService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(importService, "batchSize", 500);
+        ReflectionTestUtils.setField(importService, "busyTimeout", Duration.ofSeconds(5));
+        when(passwordHashingExecutor.getPoolSize()).thenReturn(2);
+    }
+
+    @Test
+    void rowsAreCreatedOrReportedAsDuplicateOrInvalid() throws Exception {
+        when(passwordEncoder.encodeAsync(any())).thenReturn(CompletableFuture.completedFuture("hash"));
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("taken@example.com"));
+
+        BulkImportResult result = importService.importUsers(body("["
+                + row("john@example.com", null) + ","
+                + row("JOHN@example.com", null) + ","
+                + row("taken@example.com", null) + ","
+                + "{\"firstName\":\"No\",\"lastName\":\"Password\",\"email\":\"np@example.com\"},"
+                + row("root@example.com", "SUPERUSER") + ","
+                + row("jane@example.com", "ADMIN") + "]"));
+
+        assertTrue(result.isComplete());
+        assertEquals(List.of(Status.CREATED, Status.DUPLICATE, Status.DUPLICATE, Status.INVALID, Status.INVALID,
+                Status.CREATED), result.getRows().stream().map(BulkImportRow::getStatus).toList());
+        assertEquals("Rôle inconnu", result.getRows().get(4).getMessage());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<User>> saved = ArgumentCaptor.forClass(List.class);
+        verify(userRepository).saveAll(saved.capture());
+        assertEquals(List.of("USER", "ADMIN"), saved.getValue().stream().map(User::getRole).toList());
+    }
+
+    @Test
+    void nullRowIsReportedAsInvalid() throws Exception {
+        when(passwordEncoder.encodeAsync(any())).thenReturn(CompletableFuture.completedFuture("hash"));
+
+        // Tableau JSON puis NDJSON : la ligne suivante est toujours importée
+        for (String json : List.of("[null," + row("john@example.com", null) + "]",
+                "null\n" + row("john@example.com", null) + "\n")) {
+            BulkImportResult result = importService.importUsers(body(json));
+
+            assertTrue(result.isComplete(), result.getError());
+            assertEquals(List.of(Status.INVALID, Status.CREATED),
+                    result.getRows().stream().map(BulkImportRow::getStatus).toList());
+            assertEquals("Ligne vide", result.getRows().get(0).getMessage());
+        }
+    }
+
+    @Test
+    void malformedRowStopsTheImportButReportsTheRowsBeforeIt() throws Exception {
+        // Un bloc par ligne : la première est déjà validée quand le JSON devient illisible
+        ReflectionTestUtils.setField(importService, "batchSize", 1);
+        when(passwordEncoder.encodeAsync(any())).thenReturn(CompletableFuture.completedFuture("hash"));
+
+        BulkImportResult result = importService.importUsers(body("["
+                + row("john@example.com", null) + ","
+                + row("jane@example.com", null) + ","
+                + "{\"email\": }]"));
+
+        assertFalse(result.isComplete());
+        assertTrue(result.getError().startsWith("JSON invalide"), result.getError());
+        assertEquals(0, result.getRetryAfterSeconds());
+        assertEquals(2, result.getCreated());
+        verify(userRepository, times(2)).saveAll(any());
+    }
+
+    @Test
+    void saturatedPoolIsWaitedForInsteadOfAborting() throws Exception {
+        when(passwordEncoder.encodeAsync(any()))
+                .thenThrow(new PasswordHashingBusyException(2))
+                .thenThrow(new PasswordHashingBusyException(2))
+                .thenReturn(CompletableFuture.completedFuture("hash"));
+
+        BulkImportResult result = importService.importUsers(body("[" + row("john@example.com", null) + "]"));
+
+        assertTrue(result.isComplete());
+        assertEquals(1, result.getCreated());
+    }
+
+    @Test
+    void poolSaturatedBeyondTheTimeoutStopsWithAPartialReport() throws Exception {
+        ReflectionTestUtils.setField(importService, "busyTimeout", Duration.ofMillis(50));
+        when(passwordEncoder.encodeAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture("hash"))
+                .thenThrow(new PasswordHashingBusyException(2));
+
+        BulkImportResult result = importService.importUsers(body("["
+                + row("john@example.com", null) + ","
+                + row("jane@example.com", null) + "]"));
+
+        assertFalse(result.isComplete());
+        assertEquals(2, result.getRetryAfterSeconds());
+        assertEquals(1, result.getCreated());
+        assertEquals("john@example.com", result.getRows().get(0).getEmail());
+    }
+
+    private static String row(String email, String role) {
+        return "{\"firstName\":\"John\",\"lastName\":\"Doe\",\"email\":\"" + email + "\",\"password\":\"password123\""
+                + (role != null ? ",\"role\":\"" + role + "\"" : "") + "}";
+    }
+
+    private static ByteArrayInputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
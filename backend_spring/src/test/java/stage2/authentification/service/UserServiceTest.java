@@ -0,0 +1,297 @@
+package stage2.authentification.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Optional;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import stage2.authentification.activity.LoginActivityWriter;
+import stage2.authentification.audit.AuditLog;
+import stage2.authentification.controller.UserController.CreateUserRequest;
+import stage2.authentification.controller.UserController.LoginRequest;
+import stage2.authentification.controller.UserController.SignupRequest;
+import stage2.authentification.dto.AuthResponse;
+import stage2.authentification.dto.UserResponse;
+import stage2.authentification.entity.RevokedToken;
+import stage2.authentification.entity.User;
+import stage2.authentification.metrics.AuthMetrics;
+import stage2.authentification.repository.RefreshTokenRepository;
+import stage2.authentification.repository.RevokedTokenRepository;
+import stage2.authentification.repository.UserRepository;
+import stage2.authentification.security.JwtUtil;
+import stage2.authentification.security.RefreshTokenStore;
+import stage2.authentification.security.TokenRevocationList;
+import stage2.authentification.security.TokenVersionRegistry;
+import stage2.authentification.security.UserDetailsCache;
+import stage2.authentification.security.UserDetailsServiceImpl;
+import stage2.authentification.security.VerifiedTokenCache;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    private static final String EMAIL = "john@example.com";
+    private static final String PASSWORD = "password123";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenStore refreshTokenStore;
+
+    private UserService userService;
+    private JwtUtil jwtUtil;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+        AuthMetrics authMetrics = new AuthMetrics(new SimpleMeterRegistry());
+
+        // Cache désactivé : chaque chargement de l'utilisateur est une vraie requête
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl();
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userDetailsService, "userDetailsCache", new UserDetailsCache(0, Duration.ZERO));
+        ReflectionTestUtils.setField(userDetailsService, "authMetrics", authMetrics);
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "tokenVersionRegistry", tokenVersionRegistry);
+        ReflectionTestUtils.setField(jwtUtil, "authMetrics", authMetrics);
+
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(userService, "authenticationManager", new ProviderManager(provider));
+        ReflectionTestUtils.setField(userService, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(userService, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(userService, "tokenVersionRegistry", tokenVersionRegistry);
+        ReflectionTestUtils.setField(userService, "userDetailsCache", new UserDetailsCache(0, Duration.ZERO));
+        ReflectionTestUtils.setField(userService, "verifiedTokenCache", new VerifiedTokenCache(false, 0));
+        ReflectionTestUtils.setField(userService, "tokenRevocationList",
+                new TokenRevocationList(revokedTokenRepository, 1000, 0.01));
+        refreshTokenStore = new RefreshTokenStore(refreshTokenRepository, 10, 1000, 100);
+        ReflectionTestUtils.setField(userService, "refreshTokenStore", refreshTokenStore);
+        // Écrivain désactivé : les événements sont ignorés, aucun thread n'est démarré
+        ReflectionTestUtils.setField(userService, "loginActivityWriter",
+                new LoginActivityWriter(null, null, false, 0, 1, Duration.ZERO));
+        ReflectionTestUtils.setField(userService, "auditLog",
+                new AuditLog(false, null, DataSize.ofMegabytes(1), 0, 0, Duration.ZERO));
+
+        user = new User(42L, "John", "Doe", EMAIL, passwordEncoder.encode(PASSWORD), "USER");
+    }
+
+    @Test
+    void loginIssuesASingleUserQuery() {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(EMAIL);
+        request.setPassword(PASSWORD);
+
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        AuthResponse response = userService.login(request);
+
+        assertNotNull(response.getToken());
+        assertEquals(42L, response.getUser().getId());
+        assertEquals("USER", response.getUser().getRole());
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void refreshIssuesASingleUserQuery() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(tokenVersionRegistry.isCurrent(anyString(), anyInt())).thenReturn(true);
+        when(refreshTokenRepository.markConsumed(anyString(), anyLong())).thenReturn(1);
+        String tokenId = JwtUtil.newTokenId();
+        refreshTokenStore.register(tokenId, 42L, "family", System.currentTimeMillis() + 60_000);
+        String refreshToken = jwtUtil.generateRefreshToken(
+                org.springframework.security.core.userdetails.User.withUsername(EMAIL).password("").build(), tokenId);
+
+        AuthResponse response = userService.refreshToken(refreshToken);
+
+        assertNotNull(response.getRefreshToken());
+        assertEquals("Doe", response.getUser().getLastName());
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void registerInsertsOnceAndMintsTokensFromTheSavedRow() {
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
+
+        AuthResponse response = userService.register(new SignupRequest("John", "Doe", EMAIL, PASSWORD));
+
+        assertEquals(EMAIL, jwtUtil.verify(response.getToken()).getSubject());
+        assertEquals(42L, response.getUser().getId());
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void registerTranslatesTheUniqueEmailViolation() {
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException(
+                "duplicate key", new SQLException(
+                        "duplicate key value violates unique constraint \"ux_users_email_normalized\"", "23505")));
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> userService.register(new SignupRequest("John", "Doe", EMAIL, PASSWORD)));
+
+        assertEquals("Email déjà utilisé", error.getMessage());
+    }
+
+    @Test
+    void registerDoesNotReportOtherUniqueViolationsAsADuplicateEmail() {
+        // Séquence en retard sur les id existants : collision de clé primaire, pas un doublon d'email
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException(
+                "duplicate key", new SQLException(
+                        "duplicate key value violates unique constraint \"pk_users\"", "23505")));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> userService.register(new SignupRequest("John", "Doe", EMAIL, PASSWORD)));
+    }
+
+    @Test
+    void duplicateEmailIsRecognisedInH2Messages() {
+        assertTrue(UserService.isDuplicateEmail(new SQLException("Unique index or primary key violation: "
+                + "\"PUBLIC.UX_USERS_EMAIL_NORMALIZED_INDEX_4 ON PUBLIC.USERS(EMAIL_NORMALIZED NULLS FIRST)\"",
+                "23505")));
+        assertFalse(UserService.isDuplicateEmail(new SQLException("Unique index or primary key violation: "
+                + "\"PUBLIC.PRIMARY_KEY_4 ON PUBLIC.USERS(ID)\"", "23505")));
+    }
+
+    @Test
+    void loggedOutRefreshTokenIsRejected() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(tokenVersionRegistry.isCurrent(anyString(), anyInt())).thenReturn(true);
+        AuthResponse session = userService.login(loginRequest());
+
+        userService.logout(session.getToken(), session.getRefreshToken());
+
+        verify(revokedTokenRepository, times(1)).save(any(RevokedToken.class));
+        verify(refreshTokenRepository, times(1)).deleteFamily(anyString());
+        assertThrows(BadCredentialsException.class, () -> userService.refreshToken(session.getRefreshToken()));
+    }
+
+    @Test
+    void reusedRefreshTokenRevokesItsWholeFamily() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(tokenVersionRegistry.isCurrent(anyString(), anyInt())).thenReturn(true);
+        when(refreshTokenRepository.markConsumed(anyString(), anyLong())).thenReturn(1);
+        AuthResponse session = userService.login(loginRequest());
+
+        AuthResponse rotated = userService.refreshToken(session.getRefreshToken());
+        assertThrows(BadCredentialsException.class, () -> userService.refreshToken(session.getRefreshToken()));
+
+        // Le token légitime issu de la rotation tombe avec sa famille
+        verify(refreshTokenRepository, times(1)).deleteFamily(anyString());
+        assertThrows(BadCredentialsException.class, () -> userService.refreshToken(rotated.getRefreshToken()));
+    }
+
+    @Test
+    void logoutAllRejectsEveryTokenAlreadyIssued() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        // Version courante jusqu'à la révocation, dépassée ensuite
+        when(tokenVersionRegistry.isCurrent(anyString(), anyInt())).thenReturn(true, false);
+        AuthResponse session = userService.login(loginRequest());
+
+        userService.logoutAll(session.getToken());
+
+        verify(tokenVersionRegistry, times(1)).revokeAll(EMAIL);
+        assertThrows(BadCredentialsException.class, () -> userService.requireAccessToken(session.getToken()));
+        assertThrows(BadCredentialsException.class, () -> userService.refreshToken(session.getRefreshToken()));
+    }
+
+    @Test
+    void createUserIsAuditedWithTheCaller() {
+        AuditLog auditLog = mock(AuditLog.class);
+        ReflectionTestUtils.setField(userService, "auditLog", auditLog);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(tokenVersionRegistry.isCurrent(anyString(), anyInt())).thenReturn(true);
+        AuthResponse session = userService.login(loginRequest());
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(
+                new User(43L, "Jane", "Doe", "jane@example.com", "hash", "USER"));
+
+        CreateUserRequest request = new CreateUserRequest();
+        request.setFirstName("Jane");
+        request.setLastName("Doe");
+        request.setEmail("jane@example.com");
+        request.setPassword(PASSWORD);
+        request.setRole("USER");
+        clearInvocations(refreshTokenRepository);
+        UserResponse response = userService.createUser(request, session.getToken());
+
+        verify(auditLog).record(AuditLog.Event.CREATE_USER, AuditLog.Outcome.SUCCESS, 43L, "jane@example.com",
+                EMAIL);
+        // Aucune session ouverte : les sessions existantes de l'appelant ne sont pas évincées
+        assertNotNull(response.getToken());
+        assertNull(response.getRefreshToken());
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    void changePasswordChecksTheCurrentPasswordThenRevokesAllTokens() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(tokenVersionRegistry.isCurrent(anyString(), anyInt())).thenReturn(true);
+        AuthResponse session = userService.login(loginRequest());
+
+        assertThrows(BadCredentialsException.class,
+                () -> userService.changePassword(session.getToken(), "wrong", "newPassword456"));
+        verify(userRepository, never()).updatePassword(anyString(), anyString());
+
+        userService.changePassword(session.getToken(), PASSWORD, "newPassword456");
+
+        verify(userRepository, times(1)).updatePassword(eq(EMAIL), anyString());
+        verify(tokenVersionRegistry, times(1)).revokeAll(EMAIL);
+    }
+
+    private static LoginRequest loginRequest() {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(EMAIL);
+        request.setPassword(PASSWORD);
+        return request;
+    }
+}